@@ -0,0 +1,128 @@
+package f1;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// A freshly seeded database per fork: the standard catalog plus a Benchmark Grand Prix on the
+// calendar, `size` users and `size` tickets.
+// DataManager reads its configuration once, when the class initialises, so this state must set
+// f1.db.url and f1.storage.profile before anything else in the fork touches DataManager.
+// The seeded tickets sit in their own stand whose capacity and sold count both equal `size`,
+// so the inventory is consistent at every size. Bookings go to a separate stand that cannot sell
+// out, and the benchmark user always owns USER_TICKETS tickets so per-user reads stay comparable.
+@State(Scope.Benchmark)
+public class BenchmarkDatabase {
+    static final String GP = "Benchmark Grand Prix";
+    static final String SEED_AREA = "Seed Stand";
+    static final String BOOKING_AREA = "Bench Stand";
+    static final String EMAIL = "bench@f1.test";
+    static final String PASSWORD = "pw";
+    static final String RACE_DATE = "BENCH";
+    static final int USER_TICKETS = 100;
+
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    @Param({"durable"})
+    public String profile;
+
+    User user;
+    SeatingArea bookingArea;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        File db = new File(System.getProperty("java.io.tmpdir"), "f1-jmh-" + size + "-" + profile + ".db");
+        for (String suffix : new String[] {"", "-wal", "-shm", "-journal"}) new File(db.getPath() + suffix).delete();
+        System.setProperty("f1.db.url", "jdbc:sqlite:" + db.getAbsolutePath());
+        System.setProperty("f1.storage.profile", profile);
+        DataManager.initializeDatabase();
+        seed();
+        DataManager.reloadGrandPrix();
+        DataManager.getInventory().rebuild();
+        DataManager.getAvailability().rebuild();
+        user = DataManager.authenticateUser(EMAIL, PASSWORD);
+        if (user == null) throw new IllegalStateException("Benchmark user could not log in");
+        bookingArea = findArea(BOOKING_AREA);
+    }
+
+    private void seed() throws SQLException {
+        String hash = DataManager.getCredentials().hash(PASSWORD).join();
+        String insertGp = "INSERT INTO grand_prix(id, name, country, image_path, race_date, season) VALUES (1000, '" + GP + "', 'Benchmark', '', '" + RACE_DATE + "', 2025)";
+        String insertUser = "INSERT INTO users(name, email, password_hash, wallet_cents) VALUES(?,?,?,?)";
+        String insertArea = "INSERT INTO seating_areas(unique_id, gp_name, area_name, price_paise, capacity, sold_tickets) VALUES(?,?,?,?,?,?)";
+        String insertTicket = "INSERT INTO tickets(ticket_id, user_email, gp_name, seating_area, ticket_count, total_cents, fx_version, booking_date, race_date) VALUES(?,?,?,?,?,?,?,?,?)";
+        try (PooledConnection pc = DataManager.getPool().borrow()) {
+            Connection conn = pc.raw();
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement();
+                 PreparedStatement users = conn.prepareStatement(insertUser);
+                 PreparedStatement areas = conn.prepareStatement(insertArea);
+                 PreparedStatement tickets = conn.prepareStatement(insertTicket)) {
+                stmt.executeUpdate(insertGp);
+                addArea(areas, SEED_AREA, size, size);
+                addArea(areas, BOOKING_AREA, Integer.MAX_VALUE, 0);
+                areas.executeBatch();
+                users.setString(1, "Bench User");
+                users.setString(2, EMAIL);
+                users.setString(3, hash);
+                users.setLong(4, Long.MAX_VALUE / 2);
+                users.executeUpdate();
+                long now = System.currentTimeMillis();
+                for (int i = 0; i < size; i++) {
+                    users.setString(1, "Seed User " + i);
+                    users.setString(2, "seed-" + i + "@f1.test");
+                    users.setString(3, hash);
+                    users.setLong(4, 100_000_000L);
+                    users.addBatch();
+                    tickets.setString(1, "SEED-" + i);
+                    tickets.setString(2, i < USER_TICKETS ? EMAIL : "seed-" + i + "@f1.test");
+                    tickets.setString(3, GP);
+                    tickets.setString(4, SEED_AREA);
+                    tickets.setInt(5, 1);
+                    tickets.setLong(6, 1_200L);
+                    tickets.setInt(7, 1);
+                    tickets.setLong(8, now - i * 1000L);
+                    tickets.setString(9, RACE_DATE);
+                    tickets.addBatch();
+                    if (i % 5000 == 4999) {
+                        users.executeBatch();
+                        tickets.executeBatch();
+                    }
+                }
+                users.executeBatch();
+                tickets.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    private static void addArea(PreparedStatement areas, String name, int capacity, int sold) throws SQLException {
+        areas.setString(1, GP + "|" + name);
+        areas.setString(2, GP);
+        areas.setString(3, name);
+        areas.setLong(4, 100_000);
+        areas.setInt(5, capacity);
+        areas.setInt(6, sold);
+        areas.addBatch();
+    }
+
+    static SeatingArea findArea(String name) {
+        for (SeatingArea a : DataManager.getSeatingAreasForGP(GP)) {
+            if (a.getName().equals(name)) return a;
+        }
+        throw new IllegalStateException("Benchmark area missing: " + GP + "|" + name);
+    }
+}
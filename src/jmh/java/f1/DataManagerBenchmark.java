@@ -0,0 +1,78 @@
+package f1;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// DataManager's read and booking paths against BenchmarkDatabase at each seeded size. Every
+// size runs in its own fork, so each starts cold with its own DataManager state. Use -prof gc
+// for allocation per operation; it counts the BookingWriter thread too, not just the caller.
+// mvn -Pjmh test-compile exec:exec -Djmh.args="DataManagerBenchmark -p size=1000,10000 -prof gc"
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Df1.metrics.logSeconds=0"})
+public class DataManagerBenchmark {
+    private static final String READ_GP = "British Grand Prix";
+
+    @Benchmark
+    public List<SeatingArea> getSeatingAreasForGP(BenchmarkDatabase db) {
+        return DataManager.getSeatingAreasForGP(READ_GP);
+    }
+
+    @Benchmark
+    public List<SeatingArea> loadSeatingAreasForGP(BenchmarkDatabase db) {
+        return DataManager.loadSeatingAreasForGP(READ_GP);
+    }
+
+    @Benchmark
+    public List<Ticket> getTicketsForUser(BenchmarkDatabase db) {
+        return DataManager.getTicketsForUser(BenchmarkDatabase.EMAIL);
+    }
+
+    @Benchmark
+    public List<Ticket> getTicketsPage(BenchmarkDatabase db) {
+        return DataManager.getTicketsPage(BenchmarkDatabase.EMAIL, null, 50);
+    }
+
+    @Benchmark
+    public User authenticateUser(BenchmarkDatabase db) {
+        return DataManager.authenticateUser(BenchmarkDatabase.EMAIL, BenchmarkDatabase.PASSWORD);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public User authenticateUserConcurrent(BenchmarkDatabase db) {
+        return DataManager.authenticateUser(BenchmarkDatabase.EMAIL, BenchmarkDatabase.PASSWORD);
+    }
+
+    @Benchmark
+    public BookingResult bookTicket(BenchmarkDatabase db) {
+        return DataManager.bookTicket(db.user, db.bookingArea, 1, db.bookingArea.getGrandPrix().getDate());
+    }
+
+    // Concurrent callers are what the group-commit writer batches together.
+    @Benchmark
+    @Threads(8)
+    public BookingResult bookTicketConcurrent(BenchmarkDatabase db) {
+        return DataManager.bookTicket(db.user, db.bookingArea, 1, db.bookingArea.getGrandPrix().getDate());
+    }
+
+    // One booking for every three catalog reads, as during an on-sale.
+    @Benchmark
+    @Threads(8)
+    public Object readsWithBookings(BenchmarkDatabase db) {
+        return ThreadLocalRandom.current().nextInt(4) == 0
+                ? DataManager.bookTicket(db.user, db.bookingArea, 1, db.bookingArea.getGrandPrix().getDate())
+                : DataManager.getSeatingAreasForGP(READ_GP);
+    }
+}
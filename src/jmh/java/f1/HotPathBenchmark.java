@@ -0,0 +1,73 @@
+package f1;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Building blocks on the booking and login paths that run without the database: price quotes,
+// the per-call metrics recorder, and password verification at different hash costs.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class HotPathBenchmark {
+
+    @State(Scope.Thread)
+    public static class Quote {
+        PricingEngine.PriceTable prices = new PricingEngine().table(35_000_000L);
+        int quantity;
+    }
+
+    @State(Scope.Benchmark)
+    public static class Recorder {
+        OperationMetrics metrics = new OperationMetrics("bench");
+    }
+
+    @State(Scope.Benchmark)
+    public static class Hash {
+        @Param({"10000", "60000", "120000", "310000"})
+        public int iterations;
+        PasswordHasher hasher;
+        String stored;
+
+        @Setup
+        public void setUp() {
+            hasher = new PasswordHasher(iterations);
+            stored = hasher.hash("pw");
+        }
+    }
+
+    @Benchmark
+    public long priceTableTotalCents(Quote q) {
+        q.quantity = q.quantity % PricingEngine.MAX_QUANTITY + 1;
+        return q.prices.totalCents(q.quantity);
+    }
+
+    @Benchmark
+    public void operationMetricsRecord(Recorder r) {
+        r.metrics.record(System.nanoTime());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void operationMetricsRecordConcurrent(Recorder r) {
+        r.metrics.record(System.nanoTime());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public boolean passwordVerify(Hash h) {
+        return h.hasher.verify("pw", h.stored);
+    }
+}
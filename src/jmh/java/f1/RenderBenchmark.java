@@ -0,0 +1,87 @@
+package f1;
+
+import java.awt.Component;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import javax.swing.JList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// List cell text and the two list renderers. These need no database: the fixtures are built
+// in memory, priced at the default FX rate.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RenderBenchmark {
+
+    @State(Scope.Thread)
+    public static class Rows {
+        static final int ROWS = 100;
+        Ticket[] tickets = new Ticket[ROWS];
+        SeatingArea[] areas = new SeatingArea[ROWS];
+        JList<Ticket> ticketList;
+        JList<SeatingArea> areaList;
+        TicketListRenderer ticketRenderer = new TicketListRenderer();
+        SeatingAreaRenderer areaRenderer = new SeatingAreaRenderer();
+        int row;
+
+        @Setup
+        public void setUp() {
+            PricingEngine pricing = new PricingEngine();
+            long now = System.currentTimeMillis();
+            GrandPrix gp = new GrandPrix(8, "British Grand Prix", "UK", "tracks/silverstone track.jpg", "Jul 04-06");
+            for (int i = 0; i < ROWS; i++) {
+                PricingEngine.PriceTable prices = pricing.table((150_000 + i * 1000) * 100L);
+                areas[i] = new SeatingArea("British Grand Prix|Stand " + i, gp, "Stand " + i, prices, 5000, i % 7 == 0 ? 5000 : i * 10);
+                tickets[i] = new Ticket("F1-" + i, "bench@f1.test", "British Grand Prix", "Stand " + i, 1 + i % 4,
+                        prices.totalCents(1 + i % 4), prices.fxVersion, new Date(now - i * 60_000L), "Jul 04-06");
+            }
+            ticketList = new JList<>(tickets);
+            areaList = new JList<>(areas);
+        }
+
+        int next() { return row = (row + 1) % ROWS; }
+    }
+
+    @Benchmark
+    public String ticketToString(Rows rows) {
+        return rows.tickets[rows.next()].toString();
+    }
+
+    @Benchmark
+    public String ticketFormatDisplay(Rows rows) {
+        return rows.tickets[rows.next()].formatDisplay();
+    }
+
+    @Benchmark
+    public String seatingAreaToString(Rows rows) {
+        return rows.areas[rows.next()].toString();
+    }
+
+    @Benchmark
+    public String seatingAreaFormatDisplay(Rows rows) {
+        return rows.areas[rows.next()].formatDisplay();
+    }
+
+    @Benchmark
+    public Component ticketListRenderer(Rows rows) {
+        int i = rows.next();
+        return rows.ticketRenderer.getListCellRendererComponent(rows.ticketList, rows.tickets[i], i, false, false);
+    }
+
+    @Benchmark
+    public Component seatingAreaRenderer(Rows rows) {
+        int i = rows.next();
+        return rows.areaRenderer.getListCellRendererComponent(rows.areaList, rows.areas[i], i, false, false);
+    }
+}
@@ -0,0 +1,5240 @@
+package f1;
+
+import java.awt.*;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.spec.InvalidKeySpecException;
+import java.sql.*;
+import java.text.NumberFormat;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.function.Supplier;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import javax.imageio.ImageIO;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanException;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// =================================================================================
+// 1. Main Application Runner
+// =================================================================================
+public class F1BookingSystem {
+    private static final Logger LOG = LoggerFactory.getLogger(F1BookingSystem.class);
+    public static void main(String[] args) {
+        // Checked here so a typo is a usage error, not an ExceptionInInitializerError from DataManager.
+        try {
+            StorageProfile.configured();
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+        }
+        // The load generator picks its own scratch database, so it must run before DataManager
+        // is initialised against the default one.
+        if (args.length > 0 && args[0].equals("--loadtest")) {
+            LoadGenerator.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        try {
+            DataManager.initializeDatabase();
+        } catch (IllegalStateException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+        }
+        if (args.length > 0 && args[0].equals("--server")) {
+            int port = 8080;
+            if (args.length > 1) {
+                try {
+                    port = Integer.parseInt(args[1]);
+                } catch (NumberFormatException e) {
+                    port = -1;
+                }
+                if (port < 1 || port > 65535) {
+                    System.err.println("Invalid port: " + args[1] + " (expected 1-65535)");
+                    System.exit(2);
+                }
+            }
+            try {
+                BookingServer.start(System.getProperty("f1.server.host", "127.0.0.1"), port);
+            } catch (IOException e) {
+                LOG.error("Could not start the booking server on port {}", port, e);
+                System.exit(1);
+            }
+            return;
+        }
+        if (args.length > 1 && args[0].equals("--import-catalog")) {
+            try {
+                int rows = DataManager.importSeatingCatalog(new File(args[1]));
+                System.out.println("Imported " + rows + " seating areas from " + args[1]);
+            } catch (IOException | SQLException e) {
+                LOG.error("Could not import the seating catalog from {}", args[1], e);
+                System.exit(1);
+            }
+            return;
+        }
+        if (args.length > 1 && args[0].equals("--set-fx-rate")) {
+            try {
+                System.out.println("Now pricing at " + DataManager.setFxRate(new BigDecimal(args[1])));
+            } catch (SQLException | IllegalArgumentException | ArithmeticException e) {
+                LOG.error("Could not set the FX rate to {}", args[1], e);
+                System.exit(1);
+            }
+            return;
+        }
+        EdtMonitor.install(Long.getLong("f1.edt.stallMs", 100L));
+        SwingUtilities.invokeLater(() -> {
+            try {
+                UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
+            } catch (Exception e) {
+                System.out.println("System L&F not found.");
+            }
+            new AuthFrame().setVisible(true);
+        });
+    }
+}
+
+// =================================================================================
+// 2. Data Models
+// =================================================================================
+class User {
+    private String name, email;
+    private volatile long walletCents;
+    public User(String name, String email, long walletCents) {
+        this.name = name; this.email = email; this.walletCents = walletCents;
+    }
+    public String getName() { return name; }
+    public String getEmail() { return email; }
+    public long getWalletCents() { return walletCents; }
+    public void setWalletCents(long cents) { this.walletCents = cents; }
+}
+
+class Ticket {
+    private String ticketId, userEmail, grandPrixName, seatingAreaName, raceDate;
+    private int ticketCount, fxVersion;
+    private long totalCents;
+    private Date bookingDate;
+    public Ticket(String id, String email, String gpName, String areaName, int count, long totalCents, int fxVersion, Date date, String raceDate) {
+        this.ticketId = id; this.userEmail = email; this.grandPrixName = gpName; this.seatingAreaName = areaName;
+        this.ticketCount = count; this.totalCents = totalCents; this.fxVersion = fxVersion; this.bookingDate = date; this.raceDate = raceDate;
+    }
+    public String getGrandPrixName() { return grandPrixName; }
+    public String getSeatingAreaName() { return seatingAreaName; }
+    public int getTicketCount() { return ticketCount; }
+    public long getTotalCents() { return totalCents; }
+    public int getFxVersion() { return fxVersion; }
+    public Date getBookingDate() { return bookingDate; }
+    public String getTicketId() { return ticketId; }
+    public String getRaceDate() { return raceDate; }
+    private String display; // tickets are immutable, so the list cell text is built once
+    @Override public String toString() {
+        String d = display;
+        if (d == null) display = d = formatDisplay();
+        return d;
+    }
+    String formatDisplay() {
+        return new StringBuilder(160).append("<html><b>").append(grandPrixName).append("</b><br>")
+                .append(ticketCount).append(" x ").append(seatingAreaName)
+                .append("<br>Booked on: ").append(Formats.bookingDate(bookingDate))
+                .append(" - Price: ").append(Formats.usd(totalCents)).append("</html>").toString();
+    }
+}
+
+class SeatingArea {
+    private String uniqueId, name;
+    private GrandPrix grandPrix;
+    private PricingEngine.PriceTable prices;
+    private int capacity, soldTickets;
+    public SeatingArea(String id, GrandPrix gp, String n, PricingEngine.PriceTable prices, int cap, int sold) {
+        this.uniqueId = id; this.grandPrix = gp; this.name = n; this.prices = prices; this.capacity = cap; this.soldTickets = sold;
+    }
+    public String getUniqueId() { return uniqueId; }
+    public GrandPrix getGrandPrix() { return grandPrix; }
+    public String getGpName() { return grandPrix.getName(); }
+    public String getName() { return name; }
+    public long getPricePaise() { return prices.unitPaise; }
+    public PricingEngine.PriceTable getPrices() { return prices; }
+    public int getCapacity() { return capacity; }
+    public int getSoldTickets() { return soldTickets; }
+    public SeatingArea withSoldTickets(int sold) { return new SeatingArea(uniqueId, grandPrix, name, prices, capacity, sold); }
+    public int getTicketsLeft() { return capacity - soldTickets; }
+    public boolean isSoldOut() { return getTicketsLeft() <= 0; }
+    private String display; // a SeatingArea is a snapshot, so its combo-box text is built once
+    @Override public String toString() {
+        String d = display;
+        if (d == null) display = d = formatDisplay();
+        return d;
+    }
+    String formatDisplay() {
+        if (isSoldOut()) return name + " - (SOLD OUT)";
+        return name + " - " + Formats.usd(prices.totalCents(1)) + " (" + getTicketsLeft() + " left)";
+    }
+}
+
+// Shared formatters for display strings. NumberFormat is not thread-safe, so each thread keeps
+// its own instance; DateTimeFormatter is immutable and shared outright. Amounts are minor units
+// (cents, paise) and are formatted through BigDecimal, so no binary fraction is ever rounded.
+final class Formats {
+    private static final ThreadLocal<NumberFormat> USD = ThreadLocal.withInitial(() -> NumberFormat.getCurrencyInstance(Locale.US));
+    private static final DateTimeFormatter BOOKING_DATE = DateTimeFormatter.ofPattern("dd MMM yyyy").withZone(ZoneId.systemDefault());
+    private Formats() { }
+    static String usd(long cents) { return USD.get().format(BigDecimal.valueOf(cents, 2)); }
+    // "1234.50" for 123450 minor units; used in JSON.
+    static String plain(long minorUnits) { return BigDecimal.valueOf(minorUnits, 2).toPlainString(); }
+    static String bookingDate(Date date) { return BOOKING_DATE.format(date.toInstant()); }
+}
+
+class GrandPrix {
+    private int id;
+    private String name, country, imagePath, date;
+    public GrandPrix(String n, String c, String path, String date) { 
+        this(0, n, c, path, date);
+    }
+    public GrandPrix(int id, String n, String c, String path, String date) {
+        this.id = id; this.name = n; this.country = c; this.imagePath = path; this.date = date;
+    }
+    public int getId() { return id; }
+    public String getName() { return name; }
+    public String getCountry() { return country; }
+    public String getImagePath() { return imagePath; }
+    public String getDate() { return date; }
+    @Override public String toString() { return name; }
+}
+
+// =================================================================================
+// 3. Data Manager (for SQLite Database)
+// =================================================================================
+class DataManager {
+    private static final Logger LOG = LoggerFactory.getLogger(DataManager.class);
+    static final String DEFAULT_DB_URL = "jdbc:sqlite:f1_booking.db";
+    private static final String DB_URL = System.getProperty("f1.db.url", DEFAULT_DB_URL);
+    private static final StorageProfile PROFILE = StorageProfile.configured();
+    private static final Metrics METRICS = new Metrics(Long.getLong("f1.metrics.logSeconds", 60L));
+    private static final SlowQueryLog SLOW_QUERIES = new SlowQueryLog(Long.getLong("f1.slowQuery.thresholdMs", -1L),
+            new File(System.getProperty("f1.slowQuery.file", "slow-queries.log")),
+            Long.getLong("f1.slowQuery.maxBytes", 5L << 20), Integer.getInteger("f1.slowQuery.files", 3));
+    private static final OperationMetrics AUTHENTICATE = METRICS.operation("authenticateUser");
+    private static final OperationMetrics GET_AREAS = METRICS.operation("getSeatingAreasForGP");
+    private static final OperationMetrics GET_TICKETS = METRICS.operation("getTicketsForUser");
+    private static final OperationMetrics BOOK = METRICS.operation("bookTicket");
+    private static final ConnectionPool POOL = new ConnectionPool(
+            Integer.getInteger("f1.pool.size", 4), Long.getLong("f1.pool.timeoutMs", 5000L), METRICS.operation("connect"));
+    private static final InventoryEngine INVENTORY = new InventoryEngine();
+    private static volatile GrandPrixRegistry GP_REGISTRY = GrandPrixRegistry.EMPTY;
+    private static final PricingEngine PRICING = new PricingEngine();
+    private static final CatalogCache CATALOG = new CatalogCache(Integer.getInteger("f1.catalog.cacheSize", 64));
+    private static final AvailabilityBoard AVAILABILITY = new AvailabilityBoard();
+    private static final InventoryEventBus EVENTS = new InventoryEventBus();
+    private static final SeatHolds HOLDS = new SeatHolds(
+            TimeUnit.SECONDS.toMillis(Long.getLong("f1.holds.ttlSeconds", 300L)), Long.getLong("f1.holds.tickMs", 100L),
+            Integer.getInteger("f1.holds.maxPerUser", 3));
+    private static final WaitingRoom WAITING_ROOM = new WaitingRoom(
+            Double.parseDouble(System.getProperty("f1.waitingRoom.ratePerSec", "200")), Integer.getInteger("f1.waitingRoom.burst", 50),
+            Integer.getInteger("f1.waitingRoom.maxQueue", 20000), Long.getLong("f1.waitingRoom.admitSeconds", 600L));
+    private static final TicketIdGenerator TICKET_IDS = TicketIdGenerator.configured();
+    private static final Credentials CREDENTIALS = new Credentials(
+            Integer.getInteger("f1.auth.iterations", 120_000),
+            Integer.getInteger("f1.auth.threads", Math.max(1, Runtime.getRuntime().availableProcessors() / 2)),
+            Integer.getInteger("f1.auth.queue", 64), Integer.getInteger("f1.auth.maxFailures", 5),
+            Integer.getInteger("f1.auth.maxTracked", 100_000), Long.getLong("f1.auth.lockoutSeconds", 30L), Long.getLong("f1.auth.sessionMinutes", 30L));
+    private static final BookingWriter WRITER = new BookingWriter(
+            Integer.getInteger("f1.booking.batchSize", 64), Long.getLong("f1.booking.lingerMicros", 2000L),
+            Long.getLong("f1.booking.drainMs", 5000L));
+
+    static {
+        try {
+            Class.forName("org.sqlite.JDBC");
+        } catch (ClassNotFoundException e) {
+            LOG.error("SQLite JDBC driver not found on the classpath", e);
+        }
+    }
+
+    // Opens a fresh, unpooled connection with the active storage profile applied.
+    // Hot paths borrow from the pool instead.
+    public static Connection connect() {
+        Connection conn = null;
+        try {
+            conn = DriverManager.getConnection(DB_URL);
+            PROFILE.apply(conn);
+        } catch (SQLException e) {
+            LOG.error("Could not open {}", DB_URL, e);
+        }
+        return conn;
+    }
+
+    public static StorageProfile getStorageProfile() { return PROFILE; }
+    public static String nextTicketId() { return TICKET_IDS.next(); }
+    public static ConnectionPool getPool() { return POOL; }
+    public static InventoryEngine getInventory() { return INVENTORY; }
+    public static CatalogCache getCatalogCache() { return CATALOG; }
+    public static PricingEngine getPricing() { return PRICING; }
+    public static AvailabilityBoard getAvailability() { return AVAILABILITY; }
+    public static InventoryEventBus getEvents() { return EVENTS; }
+    public static SeatHolds getHolds() { return HOLDS; }
+    public static WaitingRoom getWaitingRoom() { return WAITING_ROOM; }
+    public static BookingWriter getBookingWriter() { return WRITER; }
+    public static Credentials getCredentials() { return CREDENTIALS; }
+    public static Metrics getMetrics() { return METRICS; }
+    public static SlowQueryLog getSlowQueries() { return SLOW_QUERIES; }
+
+    public static String diagnostics() {
+        String nl = System.lineSeparator();
+        String storage;
+        try (PooledConnection pc = POOL.borrow()) {
+            storage = PROFILE.describe(pc.raw());
+        } catch (SQLException e) {
+            storage = "storage[profile=" + PROFILE.getName() + " unavailable: " + e.getMessage() + "]";
+        }
+        return storage + nl + POOL.stats() + nl + CATALOG.stats() + nl + INVENTORY.stats() + nl + AVAILABILITY.stats() + nl + EVENTS.stats() + nl + HOLDS.stats() + nl + WAITING_ROOM.stats() + nl + CREDENTIALS.stats() + nl + WRITER.stats() + nl + METRICS.stats() + nl + SLOW_QUERIES.stats();
+    }
+
+    public static void initializeDatabase() {
+        try (Connection conn = connect(); Statement stmt = conn.createStatement()) {
+            SchemaMigrations.migrate(conn);
+            ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM seating_areas");
+            if (rs.getInt(1) == 0) {
+                System.out.println("Database empty. Populating initial data...");
+                populateInitialData(conn);
+                System.out.println("Data populated.");
+            }
+            PRICING.load(conn);
+            TICKET_IDS.claim(conn);
+            CATALOG.invalidateAll();
+        } catch (SQLException e) {
+            LOG.error("Could not initialize the database", e);
+        }
+        reloadGrandPrix();
+        INVENTORY.rebuild();
+        AVAILABILITY.rebuild();
+    }
+
+    // Seeds the catalog as one batched transaction: a single prepared INSERT and one commit.
+    private static void populateInitialData(Connection conn) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try (PreparedStatement pstmt = conn.prepareStatement(CatalogImporter.UPSERT_SQL)) {
+            populateInitialData(pstmt);
+            pstmt.executeBatch();
+            conn.commit();
+        } catch (SQLException e) {
+            METRICS.rollback();
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static void populateInitialData(PreparedStatement pstmt) throws SQLException {
+        // --- COMPREHENSIVELY UPDATED WITH ALL STANDS ---
+        addSeatingArea(pstmt, "Abu Dhabi Grand Prix", "Main Grandstand", 350000, 5000);
+        addSeatingArea(pstmt, "Abu Dhabi Grand Prix", "North Straight", 180000, 3000);
+        addSeatingArea(pstmt, "Abu Dhabi Grand Prix", "North Grandstand", 185000, 3500);
+        addSeatingArea(pstmt, "Abu Dhabi Grand Prix", "West Straight", 195000, 2500);
+        addSeatingArea(pstmt, "Abu Dhabi Grand Prix", "West Grandstand", 205000, 4000);
+        addSeatingArea(pstmt, "Abu Dhabi Grand Prix", "Marina Grandstand", 250000, 3000);
+        addSeatingArea(pstmt, "Abu Dhabi Grand Prix", "South Grandstand", 210000, 4500);
+        addSeatingArea(pstmt, "Abu Dhabi Grand Prix", "General Admission", 80000, 10000);
+
+        addSeatingArea(pstmt, "Australian Grand Prix", "Stewart Grandstand", 115000, 1500);
+        addSeatingArea(pstmt, "Australian Grand Prix", "Hill Grandstand", 85000, 2000);
+        addSeatingArea(pstmt, "Australian Grand Prix", "Ricciardo Grandstand", 95000, 1800);
+        addSeatingArea(pstmt, "Australian Grand Prix", "Jones Grandstand", 90000, 1200);
+        addSeatingArea(pstmt, "Australian Grand Prix", "Moss Grandstand", 90000, 1200);
+        addSeatingArea(pstmt, "Australian Grand Prix", "Fangio Grandstand", 120000, 2500);
+        addSeatingArea(pstmt, "Australian Grand Prix", "Senna Grandstand", 110000, 1000);
+        addSeatingArea(pstmt, "Australian Grand Prix", "Prost Grandstand", 112000, 1000);
+        addSeatingArea(pstmt, "Australian Grand Prix", "Lauda Grandstand", 98000, 1300);
+        addSeatingArea(pstmt, "Australian Grand Prix", "Schumacher Grandstand", 92000, 1400);
+        addSeatingArea(pstmt, "Australian Grand Prix", "Webber Grandstand", 88000, 1600);
+        addSeatingArea(pstmt, "Australian Grand Prix", "Vettel Grandstand", 88000, 1600);
+        addSeatingArea(pstmt, "Australian Grand Prix", "Waite Grandstand", 82000, 1700);
+        addSeatingArea(pstmt, "Australian Grand Prix", "Clark Grandstand", 83000, 1700);
+        addSeatingArea(pstmt, "Australian Grand Prix", "Button Grandstand", 84000, 1700);
+        
+        addSeatingArea(pstmt, "Azerbaijan Grand Prix", "Absheron (Main)", 280000, 4000);
+        addSeatingArea(pstmt, "Azerbaijan Grand Prix", "Champions Club", 250000, 500);
+        addSeatingArea(pstmt, "Azerbaijan Grand Prix", "Zafar Grandstand", 160000, 1000);
+        addSeatingArea(pstmt, "Azerbaijan Grand Prix", "Khazar Grandstand", 155000, 1200);
+        addSeatingArea(pstmt, "Azerbaijan Grand Prix", "Icheri Sheher", 150000, 800);
+        addSeatingArea(pstmt, "Azerbaijan Grand Prix", "Sahil Grandstand", 145000, 1500);
+        addSeatingArea(pstmt, "Azerbaijan Grand Prix", "Bulvar Grandstand", 130000, 1500);
+        addSeatingArea(pstmt, "Azerbaijan Grand Prix", "Mugham Grandstand", 125000, 1000);
+        addSeatingArea(pstmt, "Azerbaijan Grand Prix", "Giz Galasi", 120000, 1000);
+        addSeatingArea(pstmt, "Azerbaijan Grand Prix", "Marine Grandstand", 115000, 1000);
+        addSeatingArea(pstmt, "Azerbaijan Grand Prix", "Azneft Grandstand", 110000, 1000);
+        addSeatingArea(pstmt, "Azerbaijan Grand Prix", "Philarmoniya", 100000, 900);
+        addSeatingArea(pstmt, "Azerbaijan Grand Prix", "General Admission", 60000, 8000);
+        
+        addSeatingArea(pstmt, "Dutch Grand Prix", "Pit Grandstand", 450000, 3000);
+        addSeatingArea(pstmt, "Dutch Grand Prix", "Paddock Club", 1200000, 200);
+        addSeatingArea(pstmt, "Dutch Grand Prix", "Hairpin Grandstand 1 & 2", 210000, 4000);
+        addSeatingArea(pstmt, "Dutch Grand Prix", "Arena Grandstand 1", 250000, 5000);
+        addSeatingArea(pstmt, "Dutch Grand Prix", "Champions Club", 950000, 400);
+
+        addSeatingArea(pstmt, "Italian Grand Prix", "Main Straight (1)", 420000, 3000);
+        addSeatingArea(pstmt, "Italian Grand Prix", "Laterale Destra (4)", 380000, 2500);
+        addSeatingArea(pstmt, "Italian Grand Prix", "Piscina (5)", 210000, 1500);
+        addSeatingArea(pstmt, "Italian Grand Prix", "Alta Velocita (6a-c)", 250000, 2000);
+        addSeatingArea(pstmt, "Italian Grand Prix", "Prima Variante (8a-b)", 220000, 2200);
+        addSeatingArea(pstmt, "Italian Grand Prix", "Seconda Variante (9-10)", 195000, 2800);
+        addSeatingArea(pstmt, "Italian Grand Prix", "Variante Ascari (16-19)", 175000, 3000);
+        addSeatingArea(pstmt, "Italian Grand Prix", "Parabolica (22-23b)", 190000, 3500);
+        addSeatingArea(pstmt, "Italian Grand Prix", "General Admission", 90000, 15000);
+
+        addSeatingArea(pstmt, "Las Vegas Grand Prix", "Heineken Silver (Main)", 800000, 6000);
+        addSeatingArea(pstmt, "Las Vegas Grand Prix", "Sphere Zone (SG1-8)", 650000, 8000);
+        addSeatingArea(pstmt, "Las Vegas Grand Prix", "T-Mobile Zone", 600000, 7000);
+        addSeatingArea(pstmt, "Las Vegas Grand Prix", "West Harmon Zone", 500000, 4000);
+        addSeatingArea(pstmt, "Las Vegas Grand Prix", "Caesar's Palace Experience", 950000, 1000);
+        addSeatingArea(pstmt, "Las Vegas Grand Prix", "Flamingo General Admission", 250000, 5000);
+        
+        addSeatingArea(pstmt, "Qatar Grand Prix", "Main Grandstand", 300000, 6000);
+        addSeatingArea(pstmt, "Qatar Grand Prix", "North Grandstand", 220000, 4000);
+        addSeatingArea(pstmt, "Qatar Grand Prix", "T2 Grandstand", 190000, 2000);
+        addSeatingArea(pstmt, "Qatar Grand Prix", "T3 Grandstand", 195000, 2000);
+        addSeatingArea(pstmt, "Qatar Grand Prix", "T16 Grandstand", 180000, 2500);
+        addSeatingArea(pstmt, "Qatar Grand Prix", "General Admission", 95000, 12000);
+        
+        addSeatingArea(pstmt, "British Grand Prix", "Hamilton Straight A/B", 550000, 7000);
+        addSeatingArea(pstmt, "British Grand Prix", "Abbey A/B", 380000, 4000);
+        addSeatingArea(pstmt, "British Grand Prix", "Farm Curve", 370000, 3000);
+        addSeatingArea(pstmt, "British Grand Prix", "Village A/B", 360000, 4500);
+        addSeatingArea(pstmt, "British Grand Prix", "The Loop", 355000, 2500);
+        addSeatingArea(pstmt, "British Grand Prix", "Aintree", 350000, 2500);
+        addSeatingArea(pstmt, "British Grand Prix", "Wellington Straight", 340000, 3000);
+        addSeatingArea(pstmt, "British Grand Prix", "Luffield", 325000, 3200);
+        addSeatingArea(pstmt, "British Grand Prix", "Woodcote A/B", 320000, 3500);
+        addSeatingArea(pstmt, "British Grand Prix", "National Pits Straight", 480000, 2000);
+        addSeatingArea(pstmt, "British Grand Prix", "Copse A/B/C", 310000, 4000);
+        addSeatingArea(pstmt, "British Grand Prix", "Becketts", 350000, 3800);
+        addSeatingArea(pstmt, "British Grand Prix", "Stowe A/B/C", 290000, 5000);
+        addSeatingArea(pstmt, "British Grand Prix", "Vale / Club", 420000, 4200);
+        addSeatingArea(pstmt, "British Grand Prix", "General Admission", 150000, 20000);
+        
+        addSeatingArea(pstmt, "Singapore Grand Prix", "Super Pit Grandstand", 650000, 2000);
+        addSeatingArea(pstmt, "Singapore Grand Prix", "Pit Grandstand", 450000, 4000);
+        addSeatingArea(pstmt, "Singapore Grand Prix", "Turn 1 Grandstand", 250000, 3000);
+        addSeatingArea(pstmt, "Singapore Grand Prix", "Turn 2 Grandstand", 240000, 3000);
+        addSeatingArea(pstmt, "Singapore Grand Prix", "Republic Grandstand", 220000, 2500);
+        addSeatingArea(pstmt, "Singapore Grand Prix", "Raffles Grandstand", 210000, 2500);
+        addSeatingArea(pstmt, "Singapore Grand Prix", "Bayfront Grandstand", 190000, 3500);
+        addSeatingArea(pstmt, "Singapore Grand Prix", "Padang Grandstand", 180000, 4000);
+        addSeatingArea(pstmt, "Singapore Grand Prix", "Connaught Grandstand", 160000, 3200);
+        addSeatingArea(pstmt, "Singapore Grand Prix", "Orange @ Empress", 150000, 2800);
+        addSeatingArea(pstmt, "Singapore Grand Prix", "Promenade Grandstand", 170000, 2000);
+        
+        addSeatingArea(pstmt, "United States Grand Prix", "Main Grandstand", 480000, 6000);
+        addSeatingArea(pstmt, "United States Grand Prix", "Turn 1 Grandstand", 350000, 4000);
+        addSeatingArea(pstmt, "United States Grand Prix", "Turn 4 Grandstand", 290000, 3500);
+        addSeatingArea(pstmt, "United States Grand Prix", "Turn 9 Grandstand", 285000, 3000);
+        addSeatingArea(pstmt, "United States Grand Prix", "Turn 12 Grandstand", 280000, 3200);
+        addSeatingArea(pstmt, "United States Grand Prix", "Turn 13 Grandstand", 270000, 2000);
+        addSeatingArea(pstmt, "United States Grand Prix", "Turn 15 Grandstand", 320000, 4500);
+        addSeatingArea(pstmt, "United States Grand Prix", "Turn 19 Grandstand", 310000, 3800);
+        addSeatingArea(pstmt, "United States Grand Prix", "Turn 19B Grandstand", 300000, 1500);
+        addSeatingArea(pstmt, "United States Grand Prix", "General Admission", 160000, 18000);
+    }
+    
+    private static void addSeatingArea(PreparedStatement pstmt, String gpName, String areaName, long rupees, int capacity) throws SQLException {
+        CatalogImporter.bind(pstmt, gpName, areaName, rupees * 100, capacity);
+        pstmt.addBatch();
+    }
+
+    // Records a new INR-to-USD rate version. Bookings priced from now on use it and record its
+    // version; existing tickets keep the version they were charged at.
+    public static PricingEngine.FxRate setFxRate(BigDecimal usdPerInr) throws SQLException {
+        PricingEngine.FxRate rate;
+        try (PooledConnection pc = POOL.borrow()) {
+            rate = PRICING.addRate(pc.raw(), usdPerInr);
+        }
+        CATALOG.invalidateAll();
+        return rate;
+    }
+
+    // Streams a CSV or JSON seating catalog into seating_areas. See CatalogImporter for the formats.
+    public static int importSeatingCatalog(File file) throws IOException, SQLException {
+        int rows;
+        try (PooledConnection pc = POOL.borrow()) {
+            rows = new CatalogImporter(Integer.getInteger("f1.import.batchSize", 1000)).importFile(pc.raw(), file);
+        }
+        CATALOG.invalidateAll();
+        INVENTORY.rebuild();
+        AVAILABILITY.rebuild();
+        return rows;
+    }
+
+    // Returns null for a wrong password, a locked account or a saturated verifier; use login()
+    // to tell those apart.
+    public static User authenticateUser(String email, String password) {
+        return login(email, password).join().user;
+    }
+
+    // The password check runs on the credential verifier pool, not the calling thread.
+    public static CompletableFuture<Credentials.Outcome> login(String email, String password) {
+        long start = System.nanoTime();
+        return CREDENTIALS.login(email, password).whenComplete((outcome, error) -> {
+            if (error != null || outcome.status == Credentials.Status.BUSY) AUTHENTICATE.failed();
+            AUTHENTICATE.record(start);
+        });
+    }
+
+    public static boolean registerUser(String name, String email, String password) {
+        String hash;
+        try {
+            hash = CREDENTIALS.hash(password).join();
+        } catch (CompletionException e) {
+            return false;
+        }
+        String sql = "INSERT INTO users(name, email, password_hash, wallet_cents) VALUES(?,?,?,?)";
+        try (PooledConnection pc = POOL.borrow()) {
+            PreparedStatement pstmt = pc.prepare(sql);
+            pstmt.setString(1, name);
+            pstmt.setString(2, email);
+            pstmt.setString(3, hash);
+            pstmt.setLong(4, 100_000_000L); // $1,000,000.00
+            pstmt.executeUpdate();
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    public static List<GrandPrix> getAllGrandPrix() {
+        return GP_REGISTRY.all();
+    }
+
+    public static GrandPrix getGrandPrix(String name) { return GP_REGISTRY.byName(name); }
+    public static GrandPrix getGrandPrix(int id) { return GP_REGISTRY.byId(id); }
+
+    // Reloads the registry from the grand_prix table, e.g. after the calendar changes.
+    // Cached areas point at the GrandPrix objects they were loaded with, so they are dropped too.
+    public static void reloadGrandPrix() {
+        try (PooledConnection pc = POOL.borrow()) {
+            GP_REGISTRY = GrandPrixRegistry.load(pc);
+        } catch (SQLException e) {
+            LOG.warn("Could not reload the Grand Prix calendar", e);
+        }
+        CATALOG.invalidateAll();
+    }
+
+    // Static area data comes from the catalog cache and live sold counts from the inventory
+    // engine, so a warm page view does not touch SQLite at all.
+    public static List<SeatingArea> getSeatingAreasForGP(String gpName) {
+        long start = System.nanoTime();
+        try {
+            long generation = CATALOG.generation();
+            List<CatalogCache.AreaInfo> infos = CATALOG.get(gpName);
+            if (infos == null) {
+                List<SeatingArea> loaded = loadSeatingAreasForGP(gpName);
+                List<CatalogCache.AreaInfo> fresh = new ArrayList<>(loaded.size());
+                for (SeatingArea a : loaded) fresh.add(new CatalogCache.AreaInfo(a));
+                CATALOG.put(gpName, generation, fresh);
+                return loaded;
+            }
+            List<SeatingArea> areas = new ArrayList<>(infos.size());
+            for (CatalogCache.AreaInfo info : infos) {
+                areas.add(new SeatingArea(info.uniqueId, info.grandPrix, info.name, info.prices, info.capacity, INVENTORY.sold(info.uniqueId)));
+            }
+            return areas;
+        } finally {
+            GET_AREAS.record(start);
+        }
+    }
+
+    // Reads a Grand Prix's areas straight from SQLite, bypassing the catalog cache. Ordering by
+    // area_name walks idx_seating_areas_gp in index order, so there is no separate sort step.
+    // Areas of a Grand Prix that is not on the calendar are not bookable and are not returned.
+    static List<SeatingArea> loadSeatingAreasForGP(String gpName) {
+        String sql = "SELECT unique_id, area_name, price_paise, capacity, sold_tickets FROM seating_areas WHERE gp_name = ? ORDER BY area_name";
+        List<SeatingArea> areas = new ArrayList<>();
+        GrandPrix gp = getGrandPrix(gpName);
+        if (gp == null) return areas;
+        try (PooledConnection pc = POOL.borrow()) {
+            PreparedStatement pstmt = pc.prepare(sql);
+            pstmt.setString(1, gpName);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    String id = rs.getString("unique_id");
+                    // The inventory engine also counts seats on hold and bookings not yet committed.
+                    int sold = INVENTORY.soldOr(id, rs.getInt("sold_tickets"));
+                    PricingEngine.PriceTable prices = PRICING.table(rs.getLong("price_paise"));
+                    areas.add(new SeatingArea(id, gp, rs.getString("area_name"), prices, rs.getInt("capacity"), sold));
+                }
+            }
+        } catch (SQLException e) {
+            GET_AREAS.failed();
+            LOG.warn("Could not load seating areas for {}", gpName, e);
+        }
+        return areas;
+    }
+
+    public static List<Ticket> getTicketsForUser(String email) {
+        long start = System.nanoTime();
+        String sql = "SELECT * FROM tickets WHERE user_email = ?";
+        List<Ticket> tickets = new ArrayList<>();
+        try (PooledConnection pc = POOL.borrow()) {
+            PreparedStatement pstmt = pc.prepare(sql);
+            pstmt.setString(1, email);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    tickets.add(readTicket(rs));
+                }
+            }
+        } catch (SQLException e) {
+            GET_TICKETS.failed();
+            LOG.warn("Could not load tickets for {}", email, e);
+        } finally {
+            GET_TICKETS.record(start);
+        }
+        return tickets;
+    }
+
+    // Keyset pagination in (booking_date, ticket_id) order, served by idx_tickets_user_booking.
+    // Pass the last ticket of the previous page as `after`, or null for the first page.
+    public static List<Ticket> getTicketsPage(String email, Ticket after, int limit) {
+        String firstSql = "SELECT * FROM tickets WHERE user_email = ? ORDER BY booking_date, ticket_id LIMIT ?";
+        String nextSql = "SELECT * FROM tickets WHERE user_email = ? AND (booking_date, ticket_id) > (?, ?) ORDER BY booking_date, ticket_id LIMIT ?";
+        List<Ticket> tickets = new ArrayList<>(limit);
+        try (PooledConnection pc = POOL.borrow()) {
+            PreparedStatement pstmt = pc.prepare(after == null ? firstSql : nextSql);
+            int i = 1;
+            pstmt.setString(i++, email);
+            if (after != null) {
+                pstmt.setLong(i++, after.getBookingDate().getTime());
+                pstmt.setString(i++, after.getTicketId());
+            }
+            pstmt.setInt(i, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    tickets.add(readTicket(rs));
+                }
+            }
+        } catch (SQLException e) {
+            LOG.warn("Could not load a page of tickets for {}", email, e);
+        }
+        return tickets;
+    }
+
+    public static int countTicketsForUser(String email) {
+        String sql = "SELECT COUNT(*) FROM tickets WHERE user_email = ?";
+        try (PooledConnection pc = POOL.borrow()) {
+            PreparedStatement pstmt = pc.prepare(sql);
+            pstmt.setString(1, email);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        } catch (SQLException e) {
+            LOG.warn("Could not count tickets for {}", email, e);
+        }
+        return 0;
+    }
+
+    private static Ticket readTicket(ResultSet rs) throws SQLException {
+        return new Ticket(rs.getString("ticket_id"), rs.getString("user_email"), rs.getString("gp_name"), rs.getString("seating_area"), rs.getInt("ticket_count"), rs.getLong("total_cents"), rs.getInt("fx_version"), new Date(rs.getLong("booking_date")), rs.getString("race_date"));
+    }
+
+    public static BookingResult bookTicket(User user, SeatingArea area, int count, String raceDate) {
+        return bookTicketAsync(user, area, count, raceDate).join();
+    }
+
+    // Seats are claimed first in the in-memory InventoryEngine, which rejects sold-out requests
+    // without touching SQLite. Accepted requests are handed to the group-commit BookingWriter,
+    // which debits the wallet with a guarded relative UPDATE and inserts the ticket; the seats
+    // are handed back if that fails. The price is quoted here at the current FX rate, never
+    // taken from the caller.
+    // Timed from the call to the group commit that settles it; SOLD_OUT and INSUFFICIENT_FUNDS
+    // are outcomes, not errors.
+    public static CompletableFuture<BookingResult> bookTicketAsync(User user, SeatingArea area, int count, String raceDate) {
+        long start = System.nanoTime();
+        return reserveAndSubmit(user, area, count, raceDate).whenComplete((result, error) -> {
+            if (error != null || result == BookingResult.ERROR) BOOK.failed();
+            BOOK.record(start);
+        });
+    }
+
+    private static CompletableFuture<BookingResult> reserveAndSubmit(User user, SeatingArea area, int count, String raceDate) {
+        if (count <= 0) return CompletableFuture.completedFuture(BookingResult.ERROR);
+        if (!admission(area.getGpName(), user).isAdmitted()) return CompletableFuture.completedFuture(BookingResult.QUEUED);
+        boolean reserved;
+        try {
+            reserved = INVENTORY.tryReserve(area.getUniqueId(), count);
+        } catch (IllegalStateException e) {
+            LOG.warn("Inventory unavailable for {}", area.getUniqueId(), e);
+            return CompletableFuture.completedFuture(BookingResult.ERROR);
+        }
+        if (!reserved) return CompletableFuture.completedFuture(BookingResult.SOLD_OUT);
+        PricingEngine.PriceTable prices = quote(area);
+        return WRITER.submit(new BookingRequest(user, area, count, prices.totalCents(count), prices.fxVersion, raceDate));
+    }
+
+    // The area's own price table unless the FX rate has moved on since it was loaded.
+    public static PricingEngine.PriceTable quote(SeatingArea area) {
+        PricingEngine.PriceTable prices = area.getPrices();
+        return prices.fxVersion == PRICING.current().version ? prices : PRICING.table(prices.unitPaise);
+    }
+
+    // Holds count seats in the area for the default TTL (-Df1.holds.ttlSeconds, default 300).
+    // The placement says whether the seats were gone or the user is at their hold limit.
+    public static SeatHolds.Placement placeHold(User user, SeatingArea area, int count) {
+        if (!admission(area.getGpName(), user).isAdmitted()) return SeatHolds.Placement.QUEUED;
+        return HOLDS.place(user, area, count, HOLDS.getDefaultTtlMillis());
+    }
+
+    // Books a held area with the seats already claimed, at the price quoted when the hold was
+    // placed. A hold that expired or was released in the meantime falls back to an ordinary
+    // booking, which succeeds if the seats are still there.
+    public static CompletableFuture<BookingResult> confirmHoldAsync(User user, SeatHold hold, String raceDate) {
+        if (!hold.userEmail.equals(user.getEmail())) return CompletableFuture.completedFuture(BookingResult.ERROR);
+        if (!admission(hold.area.getGpName(), user).isAdmitted()) return CompletableFuture.completedFuture(BookingResult.QUEUED);
+        if (!HOLDS.convert(hold)) return bookTicketAsync(user, hold.area, hold.count, raceDate);
+        return WRITER.submit(new BookingRequest(user, hold.area, hold.count, hold.totalCents, hold.fxVersion, raceDate));
+    }
+
+    public static boolean releaseHold(SeatHold hold) {
+        return HOLDS.release(hold);
+    }
+
+    // Bookings, holds and confirmations all pass through the Grand Prix's waiting room, whichever
+    // client they come from; anyone not admitted gets QUEUED back. Visitors are keyed by email so
+    // logging in again does not jump the line. Polling this is how a client waits its turn.
+    public static WaitingRoom.Pass admission(String gpName, User user) {
+        return WAITING_ROOM.enter(gpName, user.getEmail());
+    }
+}
+
+enum BookingResult {
+    OK, SOLD_OUT, INSUFFICIENT_FUNDS, ERROR,
+    QUEUED; // not yet admitted by the Grand Prix's waiting room; nothing was reserved
+    public boolean isSuccess() { return this == OK; }
+}
+
+// Versioned schema. Each migration runs once, in order, in its own transaction, and records
+// itself in schema_version; startup only reads the current version when nothing is pending.
+// Every step is written to be idempotent so pre-migration databases upgrade cleanly.
+// Append new migrations to the end of MIGRATIONS; never edit or reorder applied ones.
+class SchemaMigrations {
+    // A data migration that cannot be written in SQL; runs inside the migration's transaction.
+    interface Step {
+        void apply(Connection conn) throws SQLException;
+    }
+
+    static final class Migration {
+        final int version;
+        final String description;
+        final String[] statements;
+        final Step step;
+        Migration(int version, String description, String... statements) {
+            this(version, description, null, statements);
+        }
+        Migration(int version, String description, Step step, String... statements) {
+            this.version = version; this.description = description; this.step = step; this.statements = statements;
+        }
+    }
+
+    static final List<Migration> MIGRATIONS = Collections.unmodifiableList(Arrays.asList(
+        new Migration(1, "baseline tables",
+            "CREATE TABLE IF NOT EXISTS users (email TEXT PRIMARY KEY, name TEXT NOT NULL, password TEXT NOT NULL, wallet_balance REAL NOT NULL)",
+            "CREATE TABLE IF NOT EXISTS seating_areas (unique_id TEXT PRIMARY KEY, gp_name TEXT NOT NULL, area_name TEXT NOT NULL, price_inr REAL NOT NULL, capacity INTEGER NOT NULL, sold_tickets INTEGER NOT NULL)",
+            "CREATE TABLE IF NOT EXISTS tickets (ticket_id TEXT PRIMARY KEY, user_email TEXT NOT NULL, gp_name TEXT NOT NULL, seating_area TEXT NOT NULL, race_date TEXT NOT NULL, ticket_count INTEGER NOT NULL, total_price_usd REAL NOT NULL, booking_date INTEGER NOT NULL, FOREIGN KEY (user_email) REFERENCES users (email))"),
+        new Migration(2, "index tickets by owner and booking time",
+            "CREATE INDEX IF NOT EXISTS idx_tickets_user_booking ON tickets(user_email, booking_date, ticket_id)"),
+        new Migration(3, "covering index for seating areas by Grand Prix",
+            "CREATE INDEX IF NOT EXISTS idx_seating_areas_gp ON seating_areas(gp_name, area_name, unique_id, price_inr, capacity, sold_tickets)"),
+        // ticket_count stays in the key: InventoryEngine.rebuild, AvailabilityBoard.rebuild and the
+        // load test's oversell check all SUM(ticket_count) per area straight from this index.
+        new Migration(4, "covering index for per-area ticket totals",
+            "CREATE INDEX IF NOT EXISTS idx_tickets_area ON tickets(gp_name, seating_area, ticket_count)"),
+        new Migration(5, "grand_prix calendar table",
+            "CREATE TABLE IF NOT EXISTS grand_prix (id INTEGER PRIMARY KEY, name TEXT NOT NULL UNIQUE, country TEXT NOT NULL, image_path TEXT NOT NULL, race_date TEXT NOT NULL, season INTEGER NOT NULL)",
+            "INSERT OR IGNORE INTO grand_prix(id, name, country, image_path, race_date, season) VALUES "
+                + "(1, 'Abu Dhabi Grand Prix', 'UAE', 'tracks/abu dhabi track.jpg', 'Dec 06-08', 2025), "
+                + "(2, 'Australian Grand Prix', 'Australia', 'tracks/australia track.jpg', 'Mar 21-23', 2025), "
+                + "(3, 'Azerbaijan Grand Prix', 'Azerbaijan', 'tracks/azerbaijan track.jpg', 'Sep 13-15', 2025), "
+                + "(4, 'Dutch Grand Prix', 'Netherlands', 'tracks/dutch track.jpg', 'Aug 29-31', 2025), "
+                + "(5, 'Italian Grand Prix', 'Italy', 'tracks/italy track.jpg', 'Sep 05-07', 2025), "
+                + "(6, 'Las Vegas Grand Prix', 'USA', 'tracks/las vegas track.jpg', 'Nov 20-22', 2025), "
+                + "(7, 'Qatar Grand Prix', 'Qatar', 'tracks/qatar track.jpg', 'Nov 28-30', 2025), "
+                + "(8, 'British Grand Prix', 'UK', 'tracks/silverstone track.jpg', 'Jul 04-06', 2025), "
+                + "(9, 'Singapore Grand Prix', 'Singapore', 'tracks/singapore track.jpg', 'Oct 03-05', 2025), "
+                + "(10, 'United States Grand Prix', 'USA', 'tracks/us track.jpg', 'Oct 17-19', 2025)"),
+        // The REAL money columns from migration 1 are NOT NULL with no default, so new rows could not
+        // leave them out. Both tables are rebuilt (create, copy, drop, rename: no DROP COLUMN) with
+        // the old values kept in nullable legacy columns that nothing reads or writes any more.
+        new Migration(6, "money in minor units and versioned FX rates",
+            "CREATE TABLE users_v6 (email TEXT PRIMARY KEY, name TEXT NOT NULL, password TEXT NOT NULL, wallet_cents INTEGER NOT NULL DEFAULT 0, wallet_balance REAL)",
+            "INSERT INTO users_v6(email, name, password, wallet_cents, wallet_balance) "
+                + "SELECT email, name, password, CAST(ROUND(wallet_balance * 100) AS INTEGER), wallet_balance FROM users",
+            "DROP TABLE users",
+            "ALTER TABLE users_v6 RENAME TO users",
+            "CREATE TABLE tickets_v6 (ticket_id TEXT PRIMARY KEY, user_email TEXT NOT NULL, gp_name TEXT NOT NULL, seating_area TEXT NOT NULL, race_date TEXT NOT NULL, ticket_count INTEGER NOT NULL, "
+                + "total_cents INTEGER NOT NULL DEFAULT 0, fx_version INTEGER NOT NULL DEFAULT 1, booking_date INTEGER NOT NULL, total_price_usd REAL, FOREIGN KEY (user_email) REFERENCES users (email))",
+            "INSERT INTO tickets_v6(ticket_id, user_email, gp_name, seating_area, race_date, ticket_count, total_cents, fx_version, booking_date, total_price_usd) "
+                + "SELECT ticket_id, user_email, gp_name, seating_area, race_date, ticket_count, CAST(ROUND(total_price_usd * 100) AS INTEGER), 1, booking_date, total_price_usd FROM tickets",
+            "DROP TABLE tickets",
+            "ALTER TABLE tickets_v6 RENAME TO tickets",
+            "CREATE INDEX IF NOT EXISTS idx_tickets_user_booking ON tickets(user_email, booking_date, ticket_id)",
+            "CREATE INDEX IF NOT EXISTS idx_tickets_area ON tickets(gp_name, seating_area, ticket_count)",
+            "CREATE TABLE IF NOT EXISTS fx_rates (version INTEGER PRIMARY KEY, base TEXT NOT NULL, quote TEXT NOT NULL, rate_ppm INTEGER NOT NULL, effective_at INTEGER NOT NULL)",
+            "INSERT OR IGNORE INTO fx_rates(version, base, quote, rate_ppm, effective_at) VALUES (1, 'INR', 'USD', 12000, 0)"),
+        // Existing plaintext values are hashed by migration 9.
+        new Migration(7, "salted password hashes",
+            "ALTER TABLE users RENAME COLUMN password TO password_hash"),
+        new Migration(8, "ticket ID node ownership and checkpoints",
+            "CREATE TABLE IF NOT EXISTS ticket_id_nodes (node_id INTEGER PRIMARY KEY, owner TEXT, last_millis INTEGER NOT NULL, heartbeat INTEGER NOT NULL)"),
+        new Migration(9, "hash remaining plaintext passwords", SchemaMigrations::hashPlaintextPasswords),
+        // Catalog prices follow the money columns of migration 6 into integer minor units; the
+        // rupee REAL stays behind as a nullable legacy column.
+        new Migration(10, "seating area prices in paise",
+            "CREATE TABLE seating_areas_v10 (unique_id TEXT PRIMARY KEY, gp_name TEXT NOT NULL, area_name TEXT NOT NULL, price_paise INTEGER NOT NULL DEFAULT 0, capacity INTEGER NOT NULL, sold_tickets INTEGER NOT NULL, price_inr REAL)",
+            "INSERT INTO seating_areas_v10(unique_id, gp_name, area_name, price_paise, capacity, sold_tickets, price_inr) "
+                + "SELECT unique_id, gp_name, area_name, CAST(ROUND(price_inr * 100) AS INTEGER), capacity, sold_tickets, price_inr FROM seating_areas",
+            "DROP TABLE seating_areas",
+            "ALTER TABLE seating_areas_v10 RENAME TO seating_areas",
+            "CREATE INDEX IF NOT EXISTS idx_seating_areas_gp ON seating_areas(gp_name, area_name, unique_id, price_paise, capacity, sold_tickets)")
+    ));
+
+    static int latestVersion() { return MIGRATIONS.get(MIGRATIONS.size() - 1).version; }
+
+    static void migrate(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS schema_version (version INTEGER PRIMARY KEY, description TEXT NOT NULL, applied_at INTEGER NOT NULL)");
+        }
+        int current = currentVersion(conn);
+        if (current > latestVersion()) {
+            throw new SQLException("Database schema version " + current + " is newer than this application supports (" + latestVersion() + ")");
+        }
+        if (current == latestVersion()) return;
+        requireSqlite(conn);
+        backUp(conn, current);
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement();
+             PreparedStatement record = conn.prepareStatement("INSERT INTO schema_version(version, description, applied_at) VALUES(?,?,?)")) {
+            for (Migration m : MIGRATIONS) {
+                if (m.version <= current) continue;
+                for (String sql : m.statements) stmt.execute(sql);
+                if (m.step != null) m.step.apply(conn);
+                record.setInt(1, m.version);
+                record.setString(2, m.description);
+                record.setLong(3, System.currentTimeMillis());
+                record.executeUpdate();
+                conn.commit();
+                System.out.println("Applied schema migration " + m.version + ": " + m.description);
+            }
+        } catch (SQLException e) {
+            DataManager.getMetrics().rollback();
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    // Passwords stored before hashing are hashed in place, so no plaintext is left on disk and
+    // PasswordHasher only ever sees hashes. Hashing is slow by design, so rows are hashed in parallel.
+    static void hashPlaintextPasswords(Connection conn) throws SQLException {
+        Map<String, String> plaintext = new LinkedHashMap<>();
+        String select = "SELECT email, password_hash FROM users WHERE substr(password_hash, 1, " + PasswordHasher.PREFIX.length() + ") <> ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(select)) {
+            pstmt.setString(1, PasswordHasher.PREFIX);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) plaintext.put(rs.getString("email"), rs.getString("password_hash"));
+            }
+        }
+        if (plaintext.isEmpty()) return;
+        PasswordHasher hasher = DataManager.getCredentials().getHasher();
+        Map<String, String> hashed = new ConcurrentHashMap<>();
+        plaintext.entrySet().parallelStream().forEach(e -> hashed.put(e.getKey(), hasher.hash(e.getValue())));
+        try (PreparedStatement update = conn.prepareStatement("UPDATE users SET password_hash = ? WHERE email = ?")) {
+            for (Map.Entry<String, String> e : hashed.entrySet()) {
+                update.setString(1, e.getValue());
+                update.setString(2, e.getKey());
+                update.addBatch();
+            }
+            update.executeBatch();
+        }
+        System.out.println("Hashed " + hashed.size() + " plaintext password(s)");
+    }
+
+    // RENAME COLUMN (migration 7) needs SQLite 3.25 and VACUUM INTO (the backup) 3.27. The bundled
+    // driver is newer, but a swapped-in driver is checked before anything is changed.
+    private static final int[] MIN_SQLITE = {3, 27, 0};
+
+    static void requireSqlite(Connection conn) throws SQLException {
+        String version;
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("SELECT sqlite_version()")) {
+            version = rs.next() ? rs.getString(1) : "0";
+        }
+        String[] parts = version.split("\\.");
+        for (int i = 0; i < MIN_SQLITE.length; i++) {
+            int v = i < parts.length ? Integer.parseInt(parts[i]) : 0;
+            if (v > MIN_SQLITE[i]) return;
+            if (v < MIN_SQLITE[i]) {
+                throw new SQLException("SQLite " + version + " cannot upgrade this database; 3.27.0 or newer is required");
+            }
+        }
+    }
+
+    // Before upgrading a database that already holds data, copies it to
+    // <file>.v<version>-<timestamp>.bak next to it. A fresh database has nothing to lose.
+    private static void backUp(Connection conn, int version) throws SQLException {
+        String file = null;
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("PRAGMA database_list")) {
+            while (rs.next()) {
+                if ("main".equals(rs.getString("name"))) file = rs.getString("file");
+            }
+        }
+        if (file == null || file.isEmpty()) return; // in-memory
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM sqlite_master WHERE type = 'table' AND name = 'users'")) {
+            if (!rs.next() || rs.getInt(1) == 0) return;
+        }
+        String backup = file + ".v" + version + "-" + DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneId.systemDefault()).format(Instant.now()) + ".bak";
+        try (PreparedStatement vacuum = conn.prepareStatement("VACUUM INTO ?")) {
+            vacuum.setString(1, backup);
+            vacuum.execute();
+        }
+        System.out.println("Backed up the database to " + backup + " before migrating");
+    }
+
+    static int currentVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+}
+
+// Immutable snapshot of the grand_prix table with O(1) lookup by name and id. Loaded once at
+// startup and swapped wholesale on reload, so readers never lock or allocate.
+final class GrandPrixRegistry {
+    static final GrandPrixRegistry EMPTY = new GrandPrixRegistry(Collections.emptyList());
+
+    private final List<GrandPrix> all;
+    private final Map<String, GrandPrix> byName;
+    private final Map<Integer, GrandPrix> byId;
+
+    private GrandPrixRegistry(List<GrandPrix> gps) {
+        Map<String, GrandPrix> names = new HashMap<>();
+        Map<Integer, GrandPrix> ids = new HashMap<>();
+        for (GrandPrix gp : gps) {
+            names.put(gp.getName(), gp);
+            ids.put(gp.getId(), gp);
+        }
+        this.all = Collections.unmodifiableList(new ArrayList<>(gps));
+        this.byName = Collections.unmodifiableMap(names);
+        this.byId = Collections.unmodifiableMap(ids);
+    }
+
+    static GrandPrixRegistry load(PooledConnection pc) throws SQLException {
+        List<GrandPrix> gps = new ArrayList<>();
+        try (ResultSet rs = pc.prepare("SELECT id, name, country, image_path, race_date FROM grand_prix ORDER BY id").executeQuery()) {
+            while (rs.next()) {
+                gps.add(new GrandPrix(rs.getInt("id"), rs.getString("name"), rs.getString("country"), rs.getString("image_path"), rs.getString("race_date")));
+            }
+        }
+        return new GrandPrixRegistry(gps);
+    }
+
+    List<GrandPrix> all() { return all; }
+    GrandPrix byName(String name) { return byName.get(name); }
+    GrandPrix byId(int id) { return byId.get(id); }
+}
+
+// Bulk-loads seating catalogs. Rows are streamed from the file and upserted in JDBC batches
+// inside one transaction, so tens of thousands of seat blocks cost one commit. Re-importing an
+// area updates its price and capacity but never touches sold_tickets.
+// Prices are given in rupees and stored in paise; anything finer than a paisa is a bad row.
+//   CSV:  gp_name,area_name,price_inr,capacity   (optional header row, "quoted" fields allowed)
+//   JSON: [{"gpName": "...", "areaName": "...", "priceInr": 350000, "capacity": 5000}, ...]
+class CatalogImporter {
+    static final String UPSERT_SQL = "INSERT INTO seating_areas(unique_id, gp_name, area_name, price_paise, capacity, sold_tickets) VALUES(?,?,?,?,?,0) "
+            + "ON CONFLICT(unique_id) DO UPDATE SET price_paise = excluded.price_paise, capacity = excluded.capacity";
+
+    private final int batchSize;
+
+    CatalogImporter(int batchSize) { this.batchSize = Math.max(1, batchSize); }
+
+    static void bind(PreparedStatement pstmt, String gpName, String areaName, long pricePaise, int capacity) throws SQLException {
+        pstmt.setString(1, gpName + "|" + areaName);
+        pstmt.setString(2, gpName);
+        pstmt.setString(3, areaName);
+        pstmt.setLong(4, pricePaise);
+        pstmt.setInt(5, capacity);
+    }
+
+    // Parsed as a decimal, so "290000.10" is exactly 29000010 paise.
+    static long paise(String rupees) {
+        return new BigDecimal(rupees.trim()).movePointRight(2).longValueExact();
+    }
+
+    int importFile(Connection conn, File file) throws IOException, SQLException {
+        try (BufferedReader in = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            RowSource rows = file.getName().toLowerCase(Locale.ROOT).endsWith(".json") ? new JsonRows(in) : new CsvRows(in);
+            return importRows(conn, rows);
+        }
+    }
+
+    int importRows(Connection conn, RowSource rows) throws IOException, SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        int count = 0;
+        try (PreparedStatement pstmt = conn.prepareStatement(UPSERT_SQL)) {
+            String[] row;
+            while ((row = rows.next()) != null) {
+                try {
+                    bind(pstmt, row[0], row[1], paise(row[2]), Integer.parseInt(row[3]));
+                } catch (ArithmeticException | NumberFormatException | NullPointerException e) {
+                    throw new IOException("Bad catalog row " + (count + 1) + ": " + Arrays.toString(row), e);
+                }
+                pstmt.addBatch();
+                if (++count % batchSize == 0) pstmt.executeBatch();
+            }
+            pstmt.executeBatch();
+            conn.commit();
+            return count;
+        } catch (SQLException | IOException e) {
+            DataManager.getMetrics().rollback();
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    // Yields {gpName, areaName, priceInr, capacity}, or null at end of input.
+    interface RowSource { String[] next() throws IOException; }
+
+    static final class CsvRows implements RowSource {
+        private final BufferedReader in;
+        private boolean first = true;
+        CsvRows(BufferedReader in) { this.in = in; }
+
+        @Override public String[] next() throws IOException {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.trim().isEmpty()) continue;
+                String[] f = split(line);
+                boolean header = first && f.length >= 3 && !looksNumeric(f[2]);
+                first = false;
+                if (header) continue;
+                if (f.length < 4) throw new IOException("Expected 4 columns, got: " + line);
+                return f;
+            }
+            return null;
+        }
+
+        private static boolean looksNumeric(String v) {
+            try { new BigDecimal(v.trim()); return true; } catch (NumberFormatException e) { return false; }
+        }
+
+        private static String[] split(String line) throws IOException {
+            List<String> out = new ArrayList<>(4);
+            StringBuilder cur = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') { cur.append('"'); i++; }
+                    else if (c == '"') quoted = false;
+                    else cur.append(c);
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    out.add(cur.toString().trim());
+                    cur.setLength(0);
+                } else {
+                    cur.append(c);
+                }
+            }
+            if (quoted) throw new IOException("Unterminated quoted field in: " + line);
+            out.add(cur.toString().trim());
+            return out.toArray(new String[0]);
+        }
+    }
+
+    // Minimal streaming reader for a top-level array of flat objects; nothing is buffered
+    // beyond the object currently being read.
+    static final class JsonRows implements RowSource {
+        private final Reader in;
+        private int peeked = -2;
+        private boolean started;
+        JsonRows(Reader in) { this.in = in; }
+
+        @Override public String[] next() throws IOException {
+            if (!started) { expect('['); started = true; }
+            int c = skipWs();
+            if (c == ']') return null;
+            if (c == ',') c = skipWs();
+            if (c == -1) throw new IOException("Unexpected end of catalog JSON");
+            if (c != '{') throw new IOException("Expected '{' in catalog JSON, got '" + (char) c + "'");
+            String[] row = new String[4];
+            c = skipWs();
+            while (c != '}') {
+                if (c == ',') { c = skipWs(); continue; }
+                if (c != '"') throw new IOException("Expected a field name in catalog JSON");
+                String key = readString();
+                expect(':');
+                String value = readValue();
+                switch (key) {
+                    case "gpName": case "gp_name": row[0] = value; break;
+                    case "areaName": case "area_name": row[1] = value; break;
+                    case "priceInr": case "price_inr": row[2] = value; break;
+                    case "capacity": row[3] = value; break;
+                    default: break;
+                }
+                c = skipWs();
+            }
+            return row;
+        }
+
+        private String readValue() throws IOException {
+            int c = skipWs();
+            if (c == '"') return readString();
+            StringBuilder sb = new StringBuilder().append((char) c);
+            while (true) {
+                c = read();
+                if (c == -1 || c == ',' || c == '}' || Character.isWhitespace(c)) { peeked = c; break; }
+                sb.append((char) c);
+            }
+            String v = sb.toString();
+            return v.equals("null") ? null : v;
+        }
+
+        private String readString() throws IOException {
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                int c = read();
+                if (c == -1) throw new IOException("Unterminated string in catalog JSON");
+                if (c == '"') return sb.toString();
+                if (c == '\\') {
+                    c = read();
+                    switch (c) {
+                        case -1: throw new IOException("Unterminated string in catalog JSON");
+                        case 'n': sb.append('\n'); break;
+                        case 't': sb.append('\t'); break;
+                        case 'r': sb.append('\r'); break;
+                        case 'b': sb.append('\b'); break;
+                        case 'f': sb.append('\f'); break;
+                        case 'u':
+                            char[] hex = new char[4];
+                            for (int i = 0; i < 4; i++) hex[i] = (char) read();
+                            try {
+                                sb.append((char) Integer.parseInt(new String(hex), 16));
+                            } catch (NumberFormatException e) {
+                                throw new IOException("Bad \\u escape in catalog JSON: " + new String(hex), e);
+                            }
+                            break;
+                        default: sb.append((char) c);
+                    }
+                } else {
+                    sb.append((char) c);
+                }
+            }
+        }
+
+        private void expect(char want) throws IOException {
+            int c = skipWs();
+            if (c != want) throw new IOException("Expected '" + want + "' in catalog JSON");
+        }
+
+        private int skipWs() throws IOException {
+            int c;
+            do { c = read(); } while (c != -1 && Character.isWhitespace(c));
+            return c;
+        }
+
+        private int read() throws IOException {
+            if (peeked != -2) { int c = peeked; peeked = -2; return c; }
+            return in.read();
+        }
+    }
+}
+
+// SQLite tuning applied to every connection DataManager opens, selected with
+// -Df1.storage.profile=durable|throughput|legacy. Both tuned profiles use WAL so readers never
+// block the booking writer; they differ in how much durability they trade for speed. WAL is
+// recorded in the database header, so f1_booking.db stays in WAL mode (with -wal/-shm files
+// beside it while open, both git-ignored) until a legacy run switches it back.
+enum StorageProfile {
+    // WAL with a full fsync on every commit: no committed booking is lost on power failure.
+    DURABLE("durable", "WAL", "FULL", 0L, -16_000, 5_000),
+    // WAL with fsync only at checkpoints: a power cut may lose the last few commits but never
+    // corrupts the database. Memory-maps the file and keeps a larger page cache.
+    THROUGHPUT("throughput", "WAL", "NORMAL", 256L * 1024 * 1024, -64_000, 10_000),
+    // The driver's defaults (rollback journal, sqlite-jdbc's 3 s busy timeout), kept as a
+    // benchmark baseline.
+    LEGACY("legacy", "DELETE", "FULL", 0L, -2_000, 3_000);
+
+    private final String name, journalMode, synchronous;
+    private final long mmapSize;
+    private final int cacheSize, busyTimeoutMs;
+
+    StorageProfile(String name, String journalMode, String synchronous, long mmapSize, int cacheSize, int busyTimeoutMs) {
+        this.name = name; this.journalMode = journalMode; this.synchronous = synchronous;
+        this.mmapSize = mmapSize; this.cacheSize = cacheSize; this.busyTimeoutMs = busyTimeoutMs;
+    }
+
+    public String getName() { return name; }
+
+    static StorageProfile configured() {
+        return fromName(System.getProperty("f1.storage.profile", "durable"));
+    }
+
+    static StorageProfile fromName(String name) {
+        StringJoiner known = new StringJoiner(", ");
+        for (StorageProfile p : values()) {
+            if (p.name.equalsIgnoreCase(name.trim())) return p;
+            known.add(p.name);
+        }
+        throw new IllegalArgumentException("Unknown storage profile: " + name + " (expected one of " + known + ")");
+    }
+
+    void apply(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA busy_timeout = " + busyTimeoutMs);
+            stmt.execute("PRAGMA journal_mode = " + journalMode);
+            stmt.execute("PRAGMA synchronous = " + synchronous);
+            stmt.execute("PRAGMA mmap_size = " + mmapSize);
+            stmt.execute("PRAGMA cache_size = " + cacheSize);
+        }
+    }
+
+    // Reads the settings back from SQLite, so diagnostics show what is actually in effect.
+    String describe(Connection conn) throws SQLException {
+        return String.format("storage[profile=%s journal_mode=%s synchronous=%s mmap_size=%s cache_size=%s busy_timeout=%s]",
+                name, pragma(conn, "journal_mode"), pragma(conn, "synchronous"), pragma(conn, "mmap_size"),
+                pragma(conn, "cache_size"), pragma(conn, "busy_timeout"));
+    }
+
+    private static String pragma(Connection conn, String name) throws SQLException {
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("PRAGMA " + name)) {
+            return rs.next() ? rs.getString(1) : "?";
+        }
+    }
+}
+
+// Log-linear latency histogram in nanoseconds: exact below 16ns, then 8 sub-buckets per power
+// of two, so any reported percentile is within 12.5% of the true value. Recording is one array
+// increment with no locking or allocation.
+final class LatencyHistogram {
+    private static final int SUB_BITS = 3, SUB = 1 << SUB_BITS, LINEAR = 2 * SUB;
+    static final int BUCKETS = LINEAR + (63 - 4) * SUB;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    void record(long nanos) {
+        counts.incrementAndGet(bucket(Math.max(0, nanos)));
+    }
+
+    static int bucket(long v) {
+        if (v < LINEAR) return (int) v;
+        int exp = 63 - Long.numberOfLeadingZeros(v);
+        return LINEAR + (exp - 4) * SUB + (int) ((v >>> (exp - SUB_BITS)) & (SUB - 1));
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < LINEAR) return bucket;
+        int exp = (bucket - LINEAR) / SUB + 4, sub = (bucket - LINEAR) % SUB;
+        return ((long) (SUB + sub + 1) << (exp - SUB_BITS)) - 1;
+    }
+
+    Snapshot snapshot() {
+        long[] c = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) c[i] = counts.get(i);
+        return new Snapshot(c);
+    }
+
+    static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(new long[BUCKETS]);
+        private final long[] counts;
+        final long total;
+
+        Snapshot(long[] counts) {
+            this.counts = counts;
+            long t = 0;
+            for (long c : counts) t += c;
+            this.total = t;
+        }
+
+        // What was recorded between an earlier snapshot and this one.
+        Snapshot since(Snapshot earlier) {
+            long[] c = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) c[i] = counts[i] - earlier.counts[i];
+            return new Snapshot(c);
+        }
+
+        long percentileNanos(double q) {
+            if (total == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(q * total)), seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) return upperBound(i);
+            }
+            return upperBound(BUCKETS - 1);
+        }
+
+        long maxNanos() {
+            for (int i = BUCKETS - 1; i >= 0; i--) if (counts[i] > 0) return upperBound(i);
+            return 0;
+        }
+    }
+}
+
+// Calls, errors and latency for one instrumented operation. Callers take System.nanoTime()
+// before the work and call record() when it ends, plus failed() if it went wrong.
+final class OperationMetrics {
+    final String name;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    OperationMetrics(String name) { this.name = name; }
+
+    void record(long startNanos) {
+        long nanos = System.nanoTime() - startNanos;
+        calls.increment();
+        latency.record(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    void failed() { errors.increment(); }
+
+    long getCalls() { return calls.sum(); }
+    long getErrors() { return errors.sum(); }
+    long getMaxNanos() { return maxNanos.get(); }
+    LatencyHistogram.Snapshot snapshot() { return latency.snapshot(); }
+
+    // Bucket upper bounds can overshoot the slowest call actually seen.
+    long percentileNanos(double q) { return Math.min(latency.snapshot().percentileNanos(q), maxNanos.get()); }
+}
+
+// Read-only DynamicMBean over a set of named suppliers. A standard MBean would need a public
+// interface, which this single-file layout cannot declare.
+final class ReadOnlyMBean implements DynamicMBean {
+    private final Map<String, Supplier<Object>> attributes;
+    private final MBeanInfo info;
+
+    ReadOnlyMBean(String description, Map<String, Supplier<Object>> attributes) {
+        this.attributes = attributes;
+        List<MBeanAttributeInfo> infos = new ArrayList<>();
+        for (Map.Entry<String, Supplier<Object>> e : attributes.entrySet()) {
+            infos.add(new MBeanAttributeInfo(e.getKey(), e.getValue().get().getClass().getName(), e.getKey(), true, false, false));
+        }
+        this.info = new MBeanInfo(getClass().getName(), description, infos.toArray(new MBeanAttributeInfo[0]), null, null, null);
+    }
+
+    @Override public Object getAttribute(String name) throws AttributeNotFoundException {
+        Supplier<Object> s = attributes.get(name);
+        if (s == null) throw new AttributeNotFoundException(name);
+        return s.get();
+    }
+
+    @Override public AttributeList getAttributes(String[] names) {
+        AttributeList list = new AttributeList();
+        for (String name : names) {
+            Supplier<Object> s = attributes.get(name);
+            if (s != null) list.add(new Attribute(name, s.get()));
+        }
+        return list;
+    }
+
+    @Override public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException(attribute.getName() + " is read-only");
+    }
+
+    @Override public AttributeList setAttributes(AttributeList list) { return new AttributeList(); }
+
+    @Override public Object invoke(String action, Object[] params, String[] signature) throws MBeanException {
+        throw new MBeanException(new UnsupportedOperationException(action));
+    }
+
+    @Override public MBeanInfo getMBeanInfo() { return info; }
+}
+
+// Per-operation call counts, error counts and latency histograms, plus transaction rollbacks.
+// Each operation is published over JMX as f1.booking:type=Operation,name=<op> and the rollback
+// count as f1.booking:type=Database. Every -Df1.metrics.logSeconds (default 60, 0 disables) one
+// summary line for that interval is logged through slf4j.
+class Metrics {
+    private static final Logger LOG = LoggerFactory.getLogger(Metrics.class);
+    static final String JMX_DOMAIN = "f1.booking";
+
+    private final List<OperationMetrics> operations = new CopyOnWriteArrayList<>();
+    private final LongAdder rollbacks = new LongAdder();
+    private final Map<String, LatencyHistogram.Snapshot> lastLogged = new HashMap<>();
+    private final Map<String, Long> lastLoggedErrors = new HashMap<>();
+    private long lastLoggedRollbacks;
+    private final long logSeconds;
+
+    Metrics(long logSeconds) {
+        this.logSeconds = logSeconds;
+        Map<String, Supplier<Object>> db = new LinkedHashMap<>();
+        db.put("Rollbacks", rollbacks::sum);
+        register("type=Database", new ReadOnlyMBean("Database transactions", db));
+        if (logSeconds > 0) {
+            ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "metrics-reporter");
+                t.setDaemon(true);
+                return t;
+            });
+            reporter.scheduleAtFixedRate(() -> LOG.info(intervalSummary()), logSeconds, logSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    synchronized OperationMetrics operation(String name) {
+        for (OperationMetrics op : operations) if (op.name.equals(name)) return op;
+        OperationMetrics op = new OperationMetrics(name);
+        operations.add(op);
+        Map<String, Supplier<Object>> attrs = new LinkedHashMap<>();
+        attrs.put("Calls", op::getCalls);
+        attrs.put("Errors", op::getErrors);
+        attrs.put("P50Millis", () -> op.percentileNanos(0.50) / 1e6);
+        attrs.put("P99Millis", () -> op.percentileNanos(0.99) / 1e6);
+        attrs.put("MaxMillis", () -> op.getMaxNanos() / 1e6);
+        register("type=Operation,name=" + name, new ReadOnlyMBean("Latency and errors of " + name, attrs));
+        return op;
+    }
+
+    void rollback() { rollbacks.increment(); }
+
+    long getRollbacks() { return rollbacks.sum(); }
+
+    private static void register(String keys, DynamicMBean bean) {
+        try {
+            ObjectName name = new ObjectName(JMX_DOMAIN + ":" + keys);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (!server.isRegistered(name)) server.registerMBean(bean, name);
+        } catch (JMException e) {
+            LOG.warn("Could not register MBean {}", keys, e);
+        }
+    }
+
+    // Activity since the previous summary line; only the reporter thread calls this.
+    synchronized String intervalSummary() {
+        StringBuilder sb = new StringBuilder("metrics interval=").append(logSeconds).append('s');
+        for (OperationMetrics op : operations) {
+            LatencyHistogram.Snapshot now = op.snapshot();
+            LatencyHistogram.Snapshot delta = now.since(lastLogged.getOrDefault(op.name, LatencyHistogram.Snapshot.EMPTY));
+            long errors = op.getErrors();
+            long newErrors = errors - lastLoggedErrors.getOrDefault(op.name, 0L);
+            lastLogged.put(op.name, now);
+            lastLoggedErrors.put(op.name, errors);
+            sb.append(' ').append(op.name).append(format(delta.total, newErrors, delta.percentileNanos(0.50), delta.percentileNanos(0.99), delta.maxNanos()));
+        }
+        long rb = rollbacks.sum();
+        sb.append(" rollbacks=").append(rb - lastLoggedRollbacks);
+        lastLoggedRollbacks = rb;
+        return sb.toString();
+    }
+
+    private static String format(long calls, long errors, long p50, long p99, long max) {
+        return String.format("[n=%d err=%d p50=%.3fms p99=%.3fms max=%.3fms]", calls, errors, p50 / 1e6, p99 / 1e6, max / 1e6);
+    }
+
+    public String stats() {
+        StringBuilder sb = new StringBuilder("metrics[");
+        for (OperationMetrics op : operations) {
+            sb.append(op.name).append(format(op.getCalls(), op.getErrors(), op.percentileNanos(0.50), op.percentileNanos(0.99), op.getMaxNanos())).append(' ');
+        }
+        return sb.append("rollbacks=").append(rollbacks.sum()).append(']').toString();
+    }
+}
+
+// Bounded pool of long-lived SQLite connections. Connections are opened lazily up to maxSize;
+// callers beyond that wait on the idle queue for up to timeoutMs before failing.
+class ConnectionPool {
+    private final int maxSize;
+    private final long timeoutMs;
+    private final BlockingQueue<PooledConnection> idle = new LinkedBlockingQueue<>();
+    private final AtomicInteger opened = new AtomicInteger();
+    private final AtomicInteger inUse = new AtomicInteger();
+    private final LongAdder checkouts = new LongAdder();
+    private final LongAdder waits = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final LongAdder stmtHits = new LongAdder();
+    private final LongAdder stmtMisses = new LongAdder();
+
+    private final OperationMetrics metrics;
+
+    public ConnectionPool(int maxSize, long timeoutMs, OperationMetrics metrics) {
+        this.maxSize = Math.max(1, maxSize);
+        this.timeoutMs = timeoutMs;
+        this.metrics = metrics;
+    }
+
+    public PooledConnection borrow() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            return acquire(start);
+        } catch (SQLException e) {
+            metrics.failed();
+            throw e;
+        } finally {
+            metrics.record(start);
+        }
+    }
+
+    private PooledConnection acquire(long start) throws SQLException {
+        PooledConnection pc = idle.poll();
+        if (pc == null) pc = tryOpen();
+        if (pc == null) {
+            waits.increment();
+            try {
+                pc = idle.poll(timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a database connection", e);
+            }
+            if (pc == null) {
+                timeouts.increment();
+                throw new SQLException("Timed out after " + timeoutMs + " ms waiting for a database connection");
+            }
+        }
+        if (pc.raw().isClosed()) {
+            opened.decrementAndGet();
+            pc = tryOpen();
+            if (pc == null) throw new SQLException("Could not reopen a database connection");
+        }
+        long waited = System.nanoTime() - start;
+        waitNanos.add(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+        checkouts.increment();
+        inUse.incrementAndGet();
+        return pc;
+    }
+
+    private PooledConnection tryOpen() throws SQLException {
+        while (true) {
+            int n = opened.get();
+            if (n >= maxSize) return null;
+            if (opened.compareAndSet(n, n + 1)) break;
+        }
+        Connection conn = DataManager.connect();
+        if (conn == null) {
+            opened.decrementAndGet();
+            throw new SQLException("Could not open a database connection");
+        }
+        return new PooledConnection(conn, this);
+    }
+
+    void release(PooledConnection pc, boolean broken) {
+        inUse.decrementAndGet();
+        if (broken) {
+            opened.decrementAndGet();
+            pc.closeQuietly();
+        } else {
+            idle.offer(pc);
+        }
+    }
+
+    void recordStatement(boolean hit) { (hit ? stmtHits : stmtMisses).increment(); }
+
+    public void shutdown() {
+        PooledConnection pc;
+        while ((pc = idle.poll()) != null) {
+            opened.decrementAndGet();
+            pc.closeQuietly();
+        }
+    }
+
+    public int getMaxSize() { return maxSize; }
+    public long getCheckouts() { return checkouts.sum(); }
+    public long getWaits() { return waits.sum(); }
+    public long getTimeouts() { return timeouts.sum(); }
+
+    public String stats() {
+        long n = Math.max(1, checkouts.sum());
+        return String.format("pool[size=%d/%d inUse=%d checkouts=%d waits=%d timeouts=%d avgWait=%.3fms maxWait=%.3fms stmtHits=%d stmtMisses=%d]",
+                opened.get(), maxSize, inUse.get(), checkouts.sum(), waits.sum(), timeouts.sum(),
+                waitNanos.sum() / 1e6 / n, maxWaitNanos.get() / 1e6, stmtHits.sum(), stmtMisses.sum());
+    }
+}
+
+// Logs every statement prepared through a PooledConnection that takes longer than
+// -Df1.slowQuery.thresholdMs. It is off by default (-1): statements are then returned unwrapped,
+// while with it on every call goes through a reflection proxy, so enable it to investigate. Each
+// entry has the SQL, the types of the bound parameters (never their values), the row count and
+// the duration. A query is timed from executeQuery until its ResultSet is exhausted or closed,
+// since SQLite does the scanning in next(). The first time a given statement is slow, its
+// EXPLAIN QUERY PLAN is captured on the same connection and logged with it. Lines go to
+// -Df1.slowQuery.file (default slow-queries.log) from a background thread, rotating at
+// -Df1.slowQuery.maxBytes into -Df1.slowQuery.files numbered backups. Only statements from
+// PooledConnection.prepare are tracked, so bookings, lookups and the inventory, availability and
+// calendar reloads all go through it; only migrations and admin commands use the raw connection.
+class SlowQueryLog {
+    private static final Logger LOG = LoggerFactory.getLogger(SlowQueryLog.class);
+    private final long thresholdNanos;
+    private final File file;
+    private final long maxBytes;
+    private final int files;
+    private final Set<String> explained = ConcurrentHashMap.newKeySet();
+    private final BlockingQueue<String> pending = new ArrayBlockingQueue<>(1024);
+    private final LongAdder logged = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicLong slowestNanos = new AtomicLong();
+
+    SlowQueryLog(long thresholdMs, File file, long maxBytes, int files) {
+        this.thresholdNanos = thresholdMs < 0 ? -1 : TimeUnit.MILLISECONDS.toNanos(thresholdMs);
+        this.file = file;
+        this.maxBytes = Math.max(1024, maxBytes);
+        this.files = Math.max(1, files);
+        if (thresholdNanos >= 0) {
+            Thread writer = new Thread(this::writeLoop, "slow-query-log");
+            writer.setDaemon(true);
+            writer.start();
+        }
+    }
+
+    public boolean isEnabled() { return thresholdNanos >= 0; }
+
+    // Called once per cached statement, so the proxy is built once, not per execution.
+    PreparedStatement wrap(String sql, PreparedStatement ps) {
+        if (!isEnabled()) return ps;
+        return (PreparedStatement) Proxy.newProxyInstance(SlowQueryLog.class.getClassLoader(),
+                new Class<?>[] {PreparedStatement.class}, new TrackedStatement(sql, ps));
+    }
+
+    private final class TrackedStatement implements InvocationHandler {
+        private final String sql;
+        private final PreparedStatement target;
+        private String[] shapes = new String[8];
+        private int params, batched;
+
+        TrackedStatement(String sql, PreparedStatement target) { this.sql = sql; this.target = target; }
+
+        @Override public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                bind((Integer) args[0], name.equals("setObject") ? args[1] == null ? "null" : args[1].getClass().getSimpleName()
+                        : name.equals("setNull") ? "null" : name.substring(3));
+            } else if (name.equals("clearParameters")) {
+                params = 0;
+            } else if (name.equals("addBatch")) {
+                batched++;
+            }
+            long start = System.nanoTime();
+            Object result = forward(target, method, args);
+            switch (name) {
+                case "executeQuery":
+                    return Proxy.newProxyInstance(SlowQueryLog.class.getClassLoader(), new Class<?>[] {ResultSet.class},
+                            new TrackedResultSet(this, (ResultSet) result, describeParams(), start));
+                case "executeUpdate":
+                    finish(this, describeParams(), start, (Integer) result);
+                    break;
+                case "executeBatch":
+                    int rows = 0;
+                    for (int n : (int[]) result) rows += Math.max(0, n);
+                    finish(this, batched + " x " + describeParams(), start, rows);
+                    batched = 0;
+                    break;
+                case "execute":
+                    finish(this, describeParams(), start, -1);
+                    break;
+                default:
+            }
+            return result;
+        }
+
+        private void bind(int index, String shape) {
+            if (index > shapes.length) shapes = Arrays.copyOf(shapes, Math.max(index, shapes.length * 2));
+            shapes[index - 1] = shape;
+            params = Math.max(params, index);
+        }
+
+        private String describeParams() {
+            return "[" + String.join(", ", Arrays.asList(shapes).subList(0, params)) + "]";
+        }
+    }
+
+    private final class TrackedResultSet implements InvocationHandler {
+        private final TrackedStatement statement;
+        private final ResultSet target;
+        private final String params;
+        private final long start;
+        private int rows;
+        private boolean done;
+
+        TrackedResultSet(TrackedStatement statement, ResultSet target, String params, long start) {
+            this.statement = statement; this.target = target; this.params = params; this.start = start;
+        }
+
+        @Override public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = forward(target, method, args);
+            String name = method.getName();
+            if (name.equals("next")) {
+                if ((Boolean) result) rows++;
+                else end();
+            } else if (name.equals("close")) {
+                end();
+            }
+            return result;
+        }
+
+        private void end() {
+            if (done) return;
+            done = true;
+            finish(statement, params, start, rows);
+        }
+    }
+
+    private static Object forward(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void finish(TrackedStatement statement, String params, long start, int rows) {
+        long nanos = System.nanoTime() - start;
+        if (nanos < thresholdNanos) return;
+        slowestNanos.accumulateAndGet(nanos, Math::max);
+        StringBuilder entry = new StringBuilder(Instant.now().toString())
+                .append(String.format(" %.3fms rows=%d params=%s sql=%s", nanos / 1e6, rows, params, statement.sql));
+        if (explained.add(statement.sql)) {
+            try {
+                entry.append(explain(statement.target.getConnection(), statement.sql));
+            } catch (SQLException e) {
+                entry.append(System.lineSeparator()).append("    plan unavailable: ").append(e.getMessage());
+            }
+        }
+        if (pending.offer(entry.toString())) logged.increment();
+        else dropped.increment();
+    }
+
+    // One indented line per plan step, nested under its parent as in the sqlite3 shell.
+    private static String explain(Connection conn, String sql) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+        Map<Integer, Integer> depth = new HashMap<>();
+        try (PreparedStatement ps = conn.prepareStatement("EXPLAIN QUERY PLAN " + sql); ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                int level = depth.getOrDefault(rs.getInt("parent"), 0) + 1;
+                depth.put(rs.getInt("id"), level);
+                plan.append(System.lineSeparator()).append("    ");
+                for (int i = 1; i < level; i++) plan.append("  ");
+                plan.append(rs.getString("detail"));
+            }
+        }
+        return plan.toString();
+    }
+
+    private void writeLoop() {
+        while (true) {
+            try {
+                String entry = pending.take();
+                try (Writer out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                    do {
+                        out.write(entry);
+                        out.write(System.lineSeparator());
+                    } while ((entry = pending.poll()) != null);
+                }
+                if (file.length() >= maxBytes) rotate();
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException e) {
+                LOG.warn("Could not write the slow query log {}", file, e);
+            }
+        }
+    }
+
+    // slow-queries.log becomes .1, .1 becomes .2, and so on; the oldest backup is dropped.
+    private void rotate() throws IOException {
+        Files.deleteIfExists(new File(file.getPath() + "." + files).toPath());
+        for (int i = files - 1; i >= 1; i--) {
+            File from = new File(file.getPath() + "." + i);
+            if (from.exists()) Files.move(from.toPath(), new File(file.getPath() + "." + (i + 1)).toPath());
+        }
+        Files.move(file.toPath(), new File(file.getPath() + ".1").toPath());
+    }
+
+    public String stats() {
+        if (!isEnabled()) return "slowQueries[disabled]";
+        return String.format("slowQueries[thresholdMs=%d logged=%d distinct=%d dropped=%d slowest=%.3fms file=%s]",
+                TimeUnit.NANOSECONDS.toMillis(thresholdNanos), logged.sum(), explained.size(), dropped.sum(),
+                slowestNanos.get() / 1e6, file.getPath());
+    }
+}
+
+// A pooled connection plus its cache of prepared statements. Statements returned by prepare()
+// belong to the cache and must not be closed by the caller; their ResultSets must be.
+class PooledConnection implements AutoCloseable {
+    private static final int MAX_CACHED_STATEMENTS = 32;
+    private final Connection conn;
+    private final ConnectionPool pool;
+    private final Map<String, PreparedStatement> statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+        @Override protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+            if (size() <= MAX_CACHED_STATEMENTS) return false;
+            try { eldest.getValue().close(); } catch (SQLException ignored) { }
+            return true;
+        }
+    };
+
+    PooledConnection(Connection conn, ConnectionPool pool) {
+        this.conn = conn; this.pool = pool;
+    }
+
+    public Connection raw() { return conn; }
+
+    public PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement ps = statements.get(sql);
+        if (ps != null && !ps.isClosed()) {
+            ps.clearParameters();
+            pool.recordStatement(true);
+            return ps;
+        }
+        ps = DataManager.getSlowQueries().wrap(sql, conn.prepareStatement(sql));
+        statements.put(sql, ps);
+        pool.recordStatement(false);
+        return ps;
+    }
+
+    @Override public void close() {
+        boolean broken = false;
+        try {
+            if (conn.isClosed()) {
+                broken = true;
+            } else if (!conn.getAutoCommit()) {
+                DataManager.getMetrics().rollback();
+                conn.rollback();
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            broken = true;
+        }
+        pool.release(this, broken);
+    }
+
+    void closeQuietly() {
+        for (PreparedStatement ps : statements.values()) {
+            try { ps.close(); } catch (SQLException ignored) { }
+        }
+        statements.clear();
+        try { conn.close(); } catch (SQLException ignored) { }
+    }
+}
+
+// Prices as exact integers: catalog prices in paise, totals in US cents. The catalog keeps
+// prices in seating_areas.price_paise, and each area gets a table of USD totals for
+// 1..MAX_QUANTITY tickets at the current FX rate when it is loaded, so a quote is an array lookup. The rate is stored in fx_rates as USD millionths per
+// rupee and versioned; a booking records the version it was priced at. A total is converted
+// once and rounded half-up to the cent, never summed from rounded unit prices.
+class PricingEngine {
+    static final int MAX_QUANTITY = 10;
+    private static final long PPM = 1_000_000L;
+
+    static final class FxRate {
+        final int version;
+        final long ratePpm; // USD millionths per rupee: 0.012 USD/INR is 12000
+        FxRate(int version, long ratePpm) { this.version = version; this.ratePpm = ratePpm; }
+        long toUsdCents(long paise) {
+            // paise * (ratePpm / 1e6) USD per rupee = paise * ratePpm / 1e6 cents
+            return (Math.multiplyExact(paise, ratePpm) + PPM / 2) / PPM;
+        }
+        @Override public String toString() {
+            return "INR/USD v" + version + " = " + BigDecimal.valueOf(ratePpm, 6).stripTrailingZeros().toPlainString();
+        }
+    }
+
+    static final class PriceTable {
+        final long unitPaise;
+        final int fxVersion;
+        private final FxRate rate;
+        private final long[] totalCents = new long[MAX_QUANTITY + 1];
+        PriceTable(long unitPaise, FxRate rate) {
+            this.unitPaise = unitPaise; this.rate = rate; this.fxVersion = rate.version;
+            for (int q = 1; q <= MAX_QUANTITY; q++) totalCents[q] = rate.toUsdCents(unitPaise * q);
+        }
+        long totalCents(int quantity) {
+            if (quantity >= 1 && quantity <= MAX_QUANTITY) return totalCents[quantity];
+            return rate.toUsdCents(Math.multiplyExact(unitPaise, (long) quantity));
+        }
+    }
+
+    // Version 1 is the rate the application always used; load() replaces it with the latest row.
+    private volatile FxRate current = new FxRate(1, 12_000);
+
+    FxRate current() { return current; }
+    PriceTable table(long unitPaise) { return new PriceTable(unitPaise, current); }
+    long toUsdCents(long paise) { return current.toUsdCents(paise); }
+
+    void load(Connection conn) throws SQLException {
+        String sql = "SELECT version, rate_ppm FROM fx_rates WHERE base = 'INR' AND quote = 'USD' ORDER BY version DESC LIMIT 1";
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+            if (rs.next()) current = new FxRate(rs.getInt("version"), rs.getLong("rate_ppm"));
+        }
+    }
+
+    synchronized FxRate addRate(Connection conn, BigDecimal usdPerInr) throws SQLException {
+        long ppm = usdPerInr.movePointRight(6).setScale(0, RoundingMode.HALF_UP).longValueExact();
+        if (ppm <= 0) throw new IllegalArgumentException("FX rate must be positive: " + usdPerInr);
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT INTO fx_rates(version, base, quote, rate_ppm, effective_at) VALUES((SELECT COALESCE(MAX(version), 0) + 1 FROM fx_rates), 'INR', 'USD', ?, ?)")) {
+            pstmt.setLong(1, ppm);
+            pstmt.setLong(2, System.currentTimeMillis());
+            pstmt.executeUpdate();
+        }
+        load(conn);
+        return current;
+    }
+}
+
+// LRU cache of the static part of the seating catalog (names, prices, capacities) per Grand Prix,
+// bounded to maxGrandPrix entries. Live sold counts are never cached here: they come from the
+// InventoryEngine, which is updated as bookings are accepted. Call invalidateAll() after the
+// catalog itself changes. Every invalidation bumps a generation number; a loader reads it before
+// going to SQLite and its put() is dropped if an invalidation happened in between, so a load that
+// raced a catalog change cannot cache the old rows.
+class CatalogCache {
+    static final class AreaInfo {
+        final String uniqueId, name;
+        final GrandPrix grandPrix;
+        final PricingEngine.PriceTable prices;
+        final int capacity;
+        AreaInfo(SeatingArea a) {
+            this.uniqueId = a.getUniqueId(); this.grandPrix = a.getGrandPrix(); this.name = a.getName();
+            this.prices = a.getPrices(); this.capacity = a.getCapacity();
+        }
+    }
+
+    private final int maxGrandPrix;
+    private final Map<String, List<AreaInfo>> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder stalePuts = new LongAdder();
+    private long generation;
+
+    CatalogCache(int maxGrandPrix) {
+        this.maxGrandPrix = Math.max(0, maxGrandPrix);
+        this.entries = new LinkedHashMap<String, List<AreaInfo>>(16, 0.75f, true) {
+            @Override protected boolean removeEldestEntry(Map.Entry<String, List<AreaInfo>> eldest) {
+                if (size() <= CatalogCache.this.maxGrandPrix) return false;
+                evictions.increment();
+                return true;
+            }
+        };
+    }
+
+    synchronized List<AreaInfo> get(String gpName) {
+        List<AreaInfo> infos = entries.get(gpName);
+        (infos == null ? misses : hits).increment();
+        return infos;
+    }
+
+    synchronized long generation() { return generation; }
+
+    // loadedGeneration is generation() as read before the load started.
+    synchronized void put(String gpName, long loadedGeneration, List<AreaInfo> infos) {
+        if (loadedGeneration != generation) {
+            stalePuts.increment();
+            return;
+        }
+        if (maxGrandPrix > 0) entries.put(gpName, Collections.unmodifiableList(infos));
+    }
+
+    public synchronized void invalidate(String gpName) { generation++; entries.remove(gpName); }
+    public synchronized void invalidateAll() { generation++; entries.clear(); }
+
+    public long getHits() { return hits.sum(); }
+    public long getMisses() { return misses.sum(); }
+
+    public synchronized String stats() {
+        long total = Math.max(1, hits.sum() + misses.sum());
+        return String.format("catalogCache[entries=%d/%d hits=%d misses=%d hitRate=%.1f%% evictions=%d generation=%d stalePuts=%d]",
+                entries.size(), maxGrandPrix, hits.sum(), misses.sum(), 100.0 * hits.sum() / total, evictions.sum(), generation, stalePuts.sum());
+    }
+}
+
+// Hot, in-memory seat inventory keyed by SeatingArea.getUniqueId(). Each area has its own
+// lock-free counter, so a rush on one grandstand never contends with another. The counters are a
+// fast first check only: seating_areas.sold_tickets is moved by the booking transaction itself,
+// with a relative UPDATE guarded by capacity (see BookingWriter), so processes sharing one
+// database cannot oversell. The tickets table stays the source of truth; rebuild() recounts it
+// and repairs any sold_tickets row that has drifted.
+class InventoryEngine {
+    private static final Logger LOG = LoggerFactory.getLogger(InventoryEngine.class);
+    // committed is the seats in the tickets table; outstanding is the seats this process has
+    // reserved but not committed yet, i.e. seats on hold and bookings queued in the BookingWriter.
+    // Both live in one long, committed in the high half, so a reservation checks capacity against
+    // their sum in a single CAS and rebuild() can replace committed without losing outstanding.
+    static final class AreaCounter {
+        volatile int capacity;
+        private final AtomicLong state;
+        AreaCounter(int capacity, int committed) { this.capacity = capacity; this.state = new AtomicLong(pack(committed, 0)); }
+
+        int sold() { long s = state.get(); return committed(s) + outstanding(s); }
+        int outstanding() { return outstanding(state.get()); }
+        int left() { return capacity - sold(); }
+
+        boolean reserve(int count) {
+            while (true) {
+                long s = state.get();
+                if (capacity - committed(s) - outstanding(s) < count) return false;
+                if (state.compareAndSet(s, pack(committed(s), outstanding(s) + count))) return true;
+            }
+        }
+
+        // Moves count reserved seats to committed, or hands them back.
+        void settle(int count, boolean commit) {
+            state.updateAndGet(s -> pack(committed(s) + (commit ? count : 0), outstanding(s) - count));
+        }
+
+        void setCommitted(int committed) {
+            state.updateAndGet(s -> pack(committed, outstanding(s)));
+        }
+
+        private static long pack(int committed, int outstanding) { return ((long) committed << 32) | (outstanding & 0xFFFFFFFFL); }
+        private static int committed(long s) { return (int) (s >>> 32); }
+        private static int outstanding(long s) { return (int) s; }
+    }
+
+    private final ConcurrentHashMap<String, AreaCounter> counters = new ConcurrentHashMap<>();
+    // Held by the BookingWriter from the start of a transaction until its outcome is applied to
+    // the counters, and by rebuild() while it recounts, so a rebuild never sees a booking both in
+    // the tickets table and still outstanding.
+    private final ReentrantLock commitLock = new ReentrantLock();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder repairedRows = new LongAdder();
+
+    Lock commitLock() { return commitLock; }
+
+    // Recounts committed seats from the tickets table in place: capacities are refreshed and new
+    // areas added, while seats on hold or queued for the BookingWriter stay counted, so rebuilding
+    // a live engine (e.g. after a catalog import) cannot sell them a second time.
+    public void rebuild() {
+        String sql = "SELECT s.unique_id, s.capacity, s.sold_tickets, COALESCE(SUM(t.ticket_count), 0) AS booked "
+                + "FROM seating_areas s LEFT JOIN tickets t ON t.gp_name = s.gp_name AND t.seating_area = s.area_name "
+                + "GROUP BY s.unique_id, s.capacity, s.sold_tickets";
+        List<String> drifted = new ArrayList<>();
+        commitLock.lock();
+        try (PooledConnection pc = DataManager.getPool().borrow(); ResultSet rs = pc.prepare(sql).executeQuery()) {
+            while (rs.next()) {
+                String id = rs.getString("unique_id");
+                int capacity = rs.getInt("capacity"), booked = rs.getInt("booked");
+                AreaCounter c = counters.putIfAbsent(id, new AreaCounter(capacity, booked));
+                if (c != null) {
+                    c.capacity = capacity;
+                    c.setCommitted(booked);
+                }
+                if (booked != rs.getInt("sold_tickets")) drifted.add(id);
+            }
+        } catch (SQLException e) {
+            LOG.warn("Could not rebuild the seat inventory", e);
+        } finally {
+            commitLock.unlock();
+        }
+        if (!drifted.isEmpty()) repair(drifted);
+    }
+
+    // Recounts each row inside a single UPDATE rather than writing the value read above, so a
+    // booking committed by another process in between is neither lost nor counted twice.
+    private void repair(List<String> ids) {
+        String sql = "UPDATE seating_areas SET sold_tickets = (SELECT COALESCE(SUM(t.ticket_count), 0) FROM tickets t "
+                + "WHERE t.gp_name = seating_areas.gp_name AND t.seating_area = seating_areas.area_name) WHERE unique_id = ?";
+        try (PooledConnection pc = DataManager.getPool().borrow()) {
+            PreparedStatement pstmt = pc.prepare(sql);
+            for (String id : ids) {
+                pstmt.setString(1, id);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+            repairedRows.add(ids.size());
+        } catch (SQLException e) {
+            LOG.warn("Could not repair sold_tickets for {}", ids, e);
+        }
+    }
+
+    // Throws IllegalStateException if the area's inventory cannot be loaded; see counter().
+    public boolean tryReserve(String areaId, int count) {
+        AreaCounter c = counter(areaId);
+        if (c == null || !c.reserve(count)) { rejected.increment(); return false; }
+        accepted.increment();
+        return true;
+    }
+
+    // A reservation whose booking committed.
+    public void commit(String areaId, int count) {
+        AreaCounter c = counters.get(areaId);
+        if (c != null) c.settle(count, true);
+    }
+
+    // A reservation given up: a released or expired hold, or a booking that failed.
+    public void release(String areaId, int count) {
+        AreaCounter c = counters.get(areaId);
+        if (c != null) c.settle(count, false);
+    }
+
+    // Adopts the committed count another process left in sold_tickets, read by the booking
+    // writer when its capacity guard turned a booking away.
+    public void resync(String areaId, int committed) {
+        AreaCounter c = counters.get(areaId);
+        if (c != null) c.setCommitted(committed);
+    }
+
+    public int sold(String areaId) {
+        AreaCounter c = counter(areaId);
+        return c == null ? 0 : c.sold();
+    }
+
+    public int soldOr(String areaId, int fallback) {
+        AreaCounter c = counters.get(areaId);
+        return c == null ? fallback : c.sold();
+    }
+
+    public int ticketsLeft(String areaId) {
+        AreaCounter c = counter(areaId);
+        return c == null ? 0 : c.left();
+    }
+
+    // Areas added after rebuild() are loaded on first use. Returns null for an unknown area and
+    // throws if the lookup itself fails, so a database error is never mistaken for a sell-out.
+    private AreaCounter counter(String areaId) {
+        AreaCounter c = counters.get(areaId);
+        if (c != null) return c;
+        String sql = "SELECT capacity, sold_tickets FROM seating_areas WHERE unique_id = ?";
+        try (PooledConnection pc = DataManager.getPool().borrow()) {
+            PreparedStatement pstmt = pc.prepare(sql);
+            pstmt.setString(1, areaId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) return null;
+                c = new AreaCounter(rs.getInt("capacity"), rs.getInt("sold_tickets"));
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not load seat inventory for " + areaId, e);
+        }
+        AreaCounter existing = counters.putIfAbsent(areaId, c);
+        return existing != null ? existing : c;
+    }
+
+    public String stats() {
+        long outstanding = 0;
+        for (AreaCounter c : counters.values()) outstanding += c.outstanding();
+        return String.format("inventory[areas=%d accepted=%d rejected=%d outstanding=%d repairedRows=%d]",
+                counters.size(), accepted.sum(), rejected.sum(), outstanding, repairedRows.sum());
+    }
+}
+
+// Per-Grand-Prix availability summary for the calendar: seats remaining, sold-out areas and the
+// cheapest area that still has seats. rebuild() loads only the static part (areas, prices,
+// capacities) with one query; seats left always come from the InventoryEngine, so the calendar
+// agrees with the booking page, counts seats on hold the same way, and never touches SQLite.
+class AvailabilityBoard {
+    private static final Logger LOG = LoggerFactory.getLogger(AvailabilityBoard.class);
+    static final class Summary {
+        final String gpName;
+        final int areas, soldOutAreas, capacity, remaining;
+        final long cheapestPaise; // -1 when every area is sold out
+        Summary(String gpName, int areas, int soldOutAreas, int capacity, int remaining, long cheapestPaise) {
+            this.gpName = gpName; this.areas = areas; this.soldOutAreas = soldOutAreas;
+            this.capacity = capacity; this.remaining = remaining; this.cheapestPaise = cheapestPaise;
+        }
+        boolean isSoldOut() { return remaining <= 0; }
+        // Some stands are gone, or under a tenth of the circuit is left.
+        boolean isLimited() { return !isSoldOut() && (soldOutAreas > 0 || remaining * 10L < capacity); }
+    }
+
+    private static final class Area {
+        final String uniqueId;
+        final long pricePaise;
+        final int capacity;
+        Area(String uniqueId, long pricePaise, int capacity) {
+            this.uniqueId = uniqueId; this.pricePaise = pricePaise; this.capacity = capacity;
+        }
+    }
+
+    private volatile Map<String, List<Area>> areasByGp = Collections.emptyMap();
+    private final LongAdder reads = new LongAdder();
+
+    public void rebuild() {
+        String sql = "SELECT unique_id, gp_name, price_paise, capacity FROM seating_areas";
+        Map<String, List<Area>> next = new HashMap<>();
+        try (PooledConnection pc = DataManager.getPool().borrow(); ResultSet rs = pc.prepare(sql).executeQuery()) {
+            while (rs.next()) {
+                next.computeIfAbsent(rs.getString("gp_name"), k -> new ArrayList<>())
+                        .add(new Area(rs.getString("unique_id"), rs.getLong("price_paise"), rs.getInt("capacity")));
+            }
+        } catch (SQLException e) {
+            LOG.warn("Could not rebuild the availability board", e);
+            return;
+        }
+        areasByGp = Collections.unmodifiableMap(next);
+    }
+
+    public Summary get(String gpName) {
+        List<Area> areas = areasByGp.get(gpName);
+        return areas == null ? null : summarize(gpName, areas);
+    }
+
+    public Map<String, Summary> all() {
+        Map<String, Summary> summaries = new HashMap<>();
+        for (Map.Entry<String, List<Area>> e : areasByGp.entrySet()) summaries.put(e.getKey(), summarize(e.getKey(), e.getValue()));
+        return summaries;
+    }
+
+    private Summary summarize(String name, List<Area> areas) {
+        reads.increment();
+        InventoryEngine inventory = DataManager.getInventory();
+        int soldOutAreas = 0, capacity = 0, remaining = 0;
+        long cheapest = -1;
+        for (Area a : areas) {
+            int left = Math.max(0, inventory.ticketsLeft(a.uniqueId));
+            capacity += a.capacity;
+            remaining += left;
+            if (left == 0) soldOutAreas++;
+            else if (cheapest < 0 || a.pricePaise < cheapest) cheapest = a.pricePaise;
+        }
+        return new Summary(name, areas.size(), soldOutAreas, capacity, remaining, cheapest);
+    }
+
+    public String stats() {
+        return String.format("availability[grandPrix=%d summaries=%d]", areasByGp.size(), reads.sum());
+    }
+}
+
+// In-process publish/subscribe for seat and wallet changes. The booking writer publishes the
+// latest sold count of an area and the latest balance of a wallet; each subscriber keeps only
+// the newest value per key until its executor runs the next drain, so a burst of bookings on
+// one area reaches a view as one update. Swing views subscribe with EventQueue::invokeLater.
+class InventoryEventBus {
+    interface Listener {
+        // soldByArea maps SeatingArea.getUniqueId() to its current sold count.
+        default void onInventoryChanged(Map<String, Integer> soldByArea) {}
+        default void onWalletChanged(String email, long balanceCents) {}
+    }
+
+    final class Subscription {
+        private final String gpName, email;
+        private final Executor executor;
+        private final Listener listener;
+        private final Object lock = new Object();
+        private Map<String, Integer> pendingSold = new HashMap<>();
+        private long pendingBalance;
+        private boolean balancePending;
+        private boolean scheduled;
+
+        private Subscription(String gpName, String email, Executor executor, Listener listener) {
+            this.gpName = gpName; this.email = email; this.executor = executor; this.listener = listener;
+        }
+
+        private void offerArea(String areaGp, String areaId, int sold) {
+            if (gpName != null && !gpName.equals(areaGp)) return;
+            synchronized (lock) {
+                if (pendingSold.put(areaId, sold) != null) coalesced.increment();
+                schedule();
+            }
+        }
+
+        private void offerWallet(String walletEmail, long balance) {
+            if (email != null && !email.equals(walletEmail)) return;
+            synchronized (lock) {
+                if (balancePending) coalesced.increment();
+                pendingBalance = balance;
+                balancePending = true;
+                schedule();
+            }
+        }
+
+        private void schedule() {
+            if (scheduled) return;
+            scheduled = true;
+            executor.execute(this::drain);
+        }
+
+        private void drain() {
+            Map<String, Integer> sold;
+            long balance;
+            boolean walletChanged;
+            synchronized (lock) {
+                sold = pendingSold;
+                balance = pendingBalance;
+                walletChanged = balancePending;
+                pendingSold = new HashMap<>();
+                balancePending = false;
+                scheduled = false;
+            }
+            if (!subscriptions.contains(this)) return;
+            if (!sold.isEmpty()) listener.onInventoryChanged(sold);
+            if (walletChanged) listener.onWalletChanged(email, balance);
+            delivered.increment();
+        }
+
+        public void cancel() { subscriptions.remove(this); }
+    }
+
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+
+    // gpName and email filter the events a subscriber sees; null means all of them.
+    public Subscription subscribe(String gpName, String email, Executor executor, Listener listener) {
+        Subscription s = new Subscription(gpName, email, executor, listener);
+        subscriptions.add(s);
+        return s;
+    }
+
+    public void publishArea(String gpName, String areaId, int sold) {
+        published.increment();
+        for (Subscription s : subscriptions) s.offerArea(gpName, areaId, sold);
+    }
+
+    public void publishWallet(String email, long balanceCents) {
+        published.increment();
+        for (Subscription s : subscriptions) s.offerWallet(email, balanceCents);
+    }
+
+    public String stats() {
+        return String.format("events[subscribers=%d published=%d coalesced=%d deliveries=%d]",
+                subscriptions.size(), published.sum(), coalesced.sum(), delivered.sum());
+    }
+}
+
+// Seats set aside for one user while they confirm. Placing a hold claims the seats in the
+// InventoryEngine straight away; exactly one of confirm, release or expiry wins the CAS out of
+// ACTIVE, and only that one decides what happens to the seats.
+class SeatHold {
+    static final int ACTIVE = 0, CONVERTED = 1, RELEASED = 2, EXPIRED = 3;
+
+    final long id;
+    final String userEmail;
+    final SeatingArea area;
+    final int count;
+    final long totalCents; // price locked in when the hold was placed
+    final int fxVersion;
+    final long expiresAtMillis;
+    final long expiresAtNanos;
+    long deadlineTick; // owned by the expiry wheel thread
+    private final AtomicInteger state = new AtomicInteger(ACTIVE);
+
+    SeatHold(long id, String userEmail, SeatingArea area, int count, PricingEngine.PriceTable prices, long ttlMillis) {
+        this.id = id; this.userEmail = userEmail; this.area = area; this.count = count;
+        this.totalCents = prices.totalCents(count); this.fxVersion = prices.fxVersion;
+        this.expiresAtMillis = System.currentTimeMillis() + ttlMillis;
+        this.expiresAtNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    }
+
+    boolean isActive() { return state.get() == ACTIVE; }
+    boolean transition(int to) { return state.compareAndSet(ACTIVE, to); }
+    long millisLeft() { return Math.max(0, expiresAtMillis - System.currentTimeMillis()); }
+}
+
+// Outstanding seat holds and their expiry. Expiry uses a hashed timing wheel: one thread
+// advances a tick at a time (-Df1.holds.tickMs, default 100) and only inspects the bucket for
+// that tick, so a new hold costs an enqueue and each expiry is O(1) however many holds are
+// outstanding. Confirmed or released holds are not unlinked; the wheel drops them when it
+// reaches their bucket. Held seats count as sold in the InventoryEngine but are not written to
+// sold_tickets; rebuild() recounts from tickets only, so a restart drops holds.
+// Each user may have at most maxPerUser holds outstanding (-Df1.holds.maxPerUser, default 3), so
+// one account cannot park a stand's inventory in holds it never confirms.
+class SeatHolds {
+    private static final Logger LOG = LoggerFactory.getLogger(SeatHolds.class);
+    enum Status { OK, SOLD_OUT, LIMIT_REACHED, QUEUED }
+
+    static final class Placement {
+        static final Placement QUEUED = new Placement(Status.QUEUED, null); // see DataManager.placeHold
+
+        final Status status;
+        final SeatHold hold; // null unless status is OK
+        Placement(Status status, SeatHold hold) { this.status = status; this.hold = hold; }
+    }
+
+    private static final int WHEEL_SIZE = 512; // power of two
+    private static final Placement SOLD_OUT = new Placement(Status.SOLD_OUT, null);
+    private static final Placement LIMIT_REACHED = new Placement(Status.LIMIT_REACHED, null);
+
+    private final long defaultTtlMillis;
+    private final int maxPerUser;
+    private final Map<String, Integer> perUser = new ConcurrentHashMap<>();
+    private final long tickNanos;
+    private final long startNanos = System.nanoTime();
+    private final List<List<SeatHold>> wheel = new ArrayList<>(WHEEL_SIZE);
+    private final Queue<SeatHold> incoming = new ConcurrentLinkedQueue<>();
+    private final Map<Long, SeatHold> byId = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder placed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder limited = new LongAdder();
+    private final LongAdder converted = new LongAdder();
+    private final LongAdder released = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private volatile int scheduled; // holds sitting in the wheel, including ones already settled
+    private long tick; // owned by the wheel thread
+
+    public SeatHolds(long defaultTtlMillis, long tickMillis, int maxPerUser) {
+        this.defaultTtlMillis = defaultTtlMillis;
+        this.maxPerUser = Math.max(1, maxPerUser);
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, tickMillis));
+        for (int i = 0; i < WHEEL_SIZE; i++) wheel.add(new ArrayList<>());
+        Thread t = new Thread(this::run, "seat-hold-expiry");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    public long getDefaultTtlMillis() { return defaultTtlMillis; }
+
+    // SOLD_OUT when the area does not have count seats left, LIMIT_REACHED when the user already
+    // has maxPerUser holds outstanding. An inventory lookup failure propagates as an exception.
+    public Placement place(User user, SeatingArea area, int count, long ttlMillis) {
+        String email = user.getEmail();
+        if (!takeSlot(email)) {
+            limited.increment();
+            return LIMIT_REACHED;
+        }
+        boolean reserved = false;
+        try {
+            reserved = count > 0 && DataManager.getInventory().tryReserve(area.getUniqueId(), count);
+        } finally {
+            if (!reserved) freeSlot(email);
+        }
+        if (!reserved) {
+            rejected.increment();
+            return SOLD_OUT;
+        }
+        SeatHold hold = new SeatHold(ids.incrementAndGet(), email, area, count, DataManager.quote(area), ttlMillis);
+        byId.put(hold.id, hold);
+        active.incrementAndGet();
+        placed.increment();
+        incoming.add(hold);
+        publish(hold);
+        return new Placement(Status.OK, hold);
+    }
+
+    private boolean takeSlot(String email) {
+        boolean[] taken = new boolean[1];
+        perUser.compute(email, (k, n) -> {
+            int held = n == null ? 0 : n;
+            if (held >= maxPerUser) return n;
+            taken[0] = true;
+            return held + 1;
+        });
+        return taken[0];
+    }
+
+    private void freeSlot(String email) {
+        perUser.computeIfPresent(email, (k, n) -> n <= 1 ? null : n - 1);
+    }
+
+    public SeatHold get(long id) { return byId.get(id); }
+
+    // Claims the hold for booking; the caller then owns its seats.
+    public boolean convert(SeatHold hold) {
+        if (!settle(hold, SeatHold.CONVERTED)) return false;
+        converted.increment();
+        return true;
+    }
+
+    public boolean release(SeatHold hold) {
+        if (!settle(hold, SeatHold.RELEASED)) return false;
+        released.increment();
+        giveBack(hold);
+        return true;
+    }
+
+    private boolean settle(SeatHold hold, int to) {
+        if (!hold.transition(to)) return false;
+        freeSlot(hold.userEmail);
+        byId.remove(hold.id);
+        active.decrementAndGet();
+        return true;
+    }
+
+    private void giveBack(SeatHold hold) {
+        DataManager.getInventory().release(hold.area.getUniqueId(), hold.count);
+        publish(hold);
+    }
+
+    private static void publish(SeatHold hold) {
+        String areaId = hold.area.getUniqueId();
+        DataManager.getEvents().publishArea(hold.area.getGpName(), areaId, DataManager.getInventory().sold(areaId));
+    }
+
+    private void run() {
+        while (true) {
+            long sleep = startNanos + (tick + 1) * tickNanos - System.nanoTime();
+            if (sleep > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleep);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                continue;
+            }
+            tick++;
+            try {
+                schedulePending();
+                expireBucket(wheel.get((int) (tick & (WHEEL_SIZE - 1))));
+            } catch (RuntimeException e) {
+                LOG.warn("Seat hold expiry failed at tick {}", tick, e);
+            }
+        }
+    }
+
+    private void schedulePending() {
+        SeatHold hold;
+        int added = 0;
+        while ((hold = incoming.poll()) != null) {
+            if (!hold.isActive()) continue;
+            hold.deadlineTick = (hold.expiresAtNanos - startNanos + tickNanos - 1) / tickNanos;
+            if (hold.deadlineTick <= tick) {
+                expire(hold);
+            } else {
+                wheel.get((int) (hold.deadlineTick & (WHEEL_SIZE - 1))).add(hold);
+                added++;
+            }
+        }
+        scheduled += added;
+    }
+
+    // Holds due on a later lap of the wheel stay put; everything else is expired or dropped.
+    private void expireBucket(List<SeatHold> bucket) {
+        int kept = 0;
+        for (int i = 0, n = bucket.size(); i < n; i++) {
+            SeatHold hold = bucket.get(i);
+            if (!hold.isActive()) continue;
+            if (hold.deadlineTick <= tick) {
+                expire(hold);
+            } else {
+                bucket.set(kept++, hold);
+            }
+        }
+        int removed = bucket.size() - kept;
+        bucket.subList(kept, bucket.size()).clear();
+        scheduled -= removed;
+    }
+
+    private void expire(SeatHold hold) {
+        if (!settle(hold, SeatHold.EXPIRED)) return;
+        expired.increment();
+        giveBack(hold);
+    }
+
+    public int getActive() { return active.get(); }
+
+    public String stats() {
+        long finished = Math.max(1, converted.sum() + released.sum() + expired.sum());
+        return String.format("holds[active=%d placed=%d rejected=%d limited=%d converted=%d released=%d expired=%d conversionRate=%.1f%% scheduled=%d maxPerUser=%d]",
+                active.get(), placed.sum(), rejected.sum(), limited.sum(), converted.sum(), released.sum(), expired.sum(),
+                100.0 * converted.sum() / finished, scheduled, maxPerUser);
+    }
+}
+
+// Admission control for on-sales. Each Grand Prix has its own line: visitors take a FIFO
+// ticket number and a token bucket (-Df1.waitingRoom.ratePerSec, .burst) decides how fast the
+// "now serving" number moves, so the booking path sees a steady arrival rate however big the
+// crowd. When nobody is waiting and a token is free a visitor walks straight in, so the room
+// costs nothing outside an on-sale. A line longer than -Df1.waitingRoom.maxQueue turns new
+// arrivals away before they hold any state. Admission lasts -Df1.waitingRoom.admitSeconds.
+// Visitors poll enter() with the same key; there are no per-waiter threads or timers.
+class WaitingRoom {
+    enum Status { ADMITTED, WAITING, REJECTED }
+
+    static final class Pass {
+        final Status status;
+        final long ticket, position, estimatedWaitMs;
+        Pass(Status status, long ticket, long position, long estimatedWaitMs) {
+            this.status = status; this.ticket = ticket; this.position = position; this.estimatedWaitMs = estimatedWaitMs;
+        }
+        boolean isAdmitted() { return status == Status.ADMITTED; }
+    }
+
+    private static final Pass ADMITTED = new Pass(Status.ADMITTED, 0, 0, 0);
+
+    private final class Line {
+        private double tokens = burst;
+        private long refilledNanos = System.nanoTime();
+        private long issued, served;
+
+        // Returns the ticket to wait on, 0 for a free token with nobody ahead, or -1 when full.
+        synchronized long join(long now) {
+            advance(now);
+            if (issued == served && tokens >= 1) {
+                tokens -= 1;
+                issued++;
+                served++;
+                return 0;
+            }
+            if (issued - served >= maxQueue) return -1;
+            return ++issued;
+        }
+
+        synchronized long served(long now) {
+            advance(now);
+            return served;
+        }
+
+        synchronized long waiting() { return issued - served; }
+
+        private void advance(long now) {
+            if (now - refilledNanos > 0) { // callers may sample the clock before this line existed
+                tokens = Math.min(burst, tokens + (now - refilledNanos) * ratePerSec / 1e9);
+                refilledNanos = now;
+            }
+            long admit = Math.min((long) tokens, issued - served);
+            served += admit;
+            tokens -= admit;
+        }
+    }
+
+    private static final class Waiter {
+        final long ticket;
+        volatile long lastSeenNanos;
+        Waiter(long ticket, long now) { this.ticket = ticket; this.lastSeenNanos = now; }
+    }
+
+    private final double ratePerSec;
+    private final int burst;
+    private final int maxQueue;
+    private final long admitNanos;
+    private final Map<String, Line> lines = new ConcurrentHashMap<>();
+    private final Map<String, Waiter> waiters = new ConcurrentHashMap<>();
+    private final Map<String, Long> admittedUntil = new ConcurrentHashMap<>();
+    private final LongAdder walkedIn = new LongAdder();
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder admittedFromQueue = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public WaitingRoom(double ratePerSec, int burst, int maxQueue, long admitSeconds) {
+        this.ratePerSec = Math.max(0.001, ratePerSec);
+        this.burst = Math.max(1, burst);
+        this.maxQueue = Math.max(0, maxQueue);
+        this.admitNanos = TimeUnit.SECONDS.toNanos(admitSeconds);
+        ScheduledExecutorService janitor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "waiting-room-janitor");
+            t.setDaemon(true);
+            return t;
+        });
+        janitor.scheduleWithFixedDelay(this::purge, 10, 10, TimeUnit.SECONDS);
+    }
+
+    // Joins the line for a Grand Prix, or reports progress for a visitor already in it.
+    public Pass enter(String gpName, String visitor) {
+        String key = gpName + '|' + visitor;
+        long now = System.nanoTime();
+        Long until = admittedUntil.get(key);
+        if (until != null && until - now > 0) return ADMITTED;
+        Line line = lines.computeIfAbsent(gpName, k -> new Line());
+        Waiter waiter = waiters.get(key);
+        if (waiter == null) {
+            long ticket = line.join(now);
+            if (ticket < 0) {
+                rejected.increment();
+                return new Pass(Status.REJECTED, 0, line.waiting(), estimateMs(line.waiting()));
+            }
+            if (ticket == 0) {
+                walkedIn.increment();
+                return admit(key, now);
+            }
+            queued.increment();
+            waiter = new Waiter(ticket, now);
+            Waiter raced = waiters.putIfAbsent(key, waiter);
+            if (raced != null) waiter = raced; // a concurrent call from the same visitor got in first
+        }
+        waiter.lastSeenNanos = now;
+        long position = waiter.ticket - line.served(now);
+        if (position <= 0) {
+            if (waiters.remove(key, waiter)) admittedFromQueue.increment();
+            return admit(key, now);
+        }
+        return new Pass(Status.WAITING, waiter.ticket, position, estimateMs(position));
+    }
+
+    public boolean isAdmitted(String gpName, String visitor) {
+        Long until = admittedUntil.get(gpName + '|' + visitor);
+        return until != null && until - System.nanoTime() > 0;
+    }
+
+    private Pass admit(String key, long now) {
+        admittedUntil.put(key, now + admitNanos);
+        return ADMITTED;
+    }
+
+    private long estimateMs(long position) {
+        return (long) Math.ceil(position * 1000.0 / ratePerSec);
+    }
+
+    // Drops expired admissions and waiters who stopped polling. An abandoned ticket still uses up
+    // its turn when the line reaches it, as in any numbered queue.
+    private void purge() {
+        long now = System.nanoTime();
+        admittedUntil.values().removeIf(until -> until - now <= 0);
+        waiters.values().removeIf(w -> now - w.lastSeenNanos > admitNanos);
+    }
+
+    public String stats() {
+        long waiting = 0;
+        for (Line line : lines.values()) waiting += line.waiting();
+        return String.format("waitingRoom[rate=%.0f/s burst=%d lines=%d waiting=%d admitted=%d walkedIn=%d queued=%d admittedFromQueue=%d rejected=%d]",
+                ratePerSec, burst, lines.size(), waiting, admittedUntil.size(), walkedIn.sum(), queued.sum(), admittedFromQueue.sum(), rejected.sum());
+    }
+}
+
+// Salted PBKDF2-HMAC-SHA256, stored as "pbkdf2-sha256$<iterations>$<salt>$<hash>" (Base64),
+// so each hash carries its own cost and the cost can be raised without a migration. Plaintext
+// passwords from before hashing were converted by schema migration 9; anything that does not
+// parse as a hash, plaintext or corrupt, never verifies.
+final class PasswordHasher {
+    static final String PREFIX = "pbkdf2-sha256$";
+    private static final int SALT_BYTES = 16, HASH_BITS = 256;
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final ThreadLocal<SecretKeyFactory> PBKDF2 = ThreadLocal.withInitial(() -> {
+        try {
+            return SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final int iterations;
+
+    PasswordHasher(int iterations) {
+        if (iterations < 1) throw new IllegalArgumentException("iterations must be positive");
+        this.iterations = iterations;
+    }
+
+    int getIterations() { return iterations; }
+
+    String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        Base64.Encoder b64 = Base64.getEncoder().withoutPadding();
+        return PREFIX + iterations + "$" + b64.encodeToString(salt) + "$" + b64.encodeToString(pbkdf2(password, salt, iterations));
+    }
+
+    boolean verify(String password, String stored) {
+        if (stored == null || !isHashed(stored)) return false;
+        String[] parts = stored.substring(PREFIX.length()).split("\\$");
+        if (parts.length != 3) return false;
+        byte[] salt, expected;
+        int cost;
+        try {
+            Base64.Decoder b64 = Base64.getDecoder();
+            cost = Integer.parseInt(parts[0]);
+            salt = b64.decode(parts[1]);
+            expected = b64.decode(parts[2]);
+        } catch (IllegalArgumentException e) { // includes NumberFormatException
+            return false;
+        }
+        if (cost < 1 || salt.length == 0 || expected.length == 0) return false;
+        return MessageDigest.isEqual(expected, pbkdf2(password, salt, cost));
+    }
+
+    // Hashed at a different cost than the one configured now.
+    boolean needsRehash(String stored) {
+        return !stored.startsWith(PREFIX + iterations + "$");
+    }
+
+    static boolean isHashed(String stored) { return stored.startsWith(PREFIX); }
+
+    private static byte[] pbkdf2(String password, byte[] salt, int iterations) {
+        if (SwingUtilities.isEventDispatchThread()) throw new IllegalStateException("Password hashing on the EDT");
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return PBKDF2.get().generateSecret(spec).getEncoded();
+        } catch (InvalidKeySpecException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
+
+// Logins, sessions and brute-force protection. Password hashing is deliberately slow, so it runs
+// on its own bounded pool (-Df1.auth.threads, -Df1.auth.queue): a login storm queues or fails
+// fast as BUSY instead of starving bookings of CPU. Accounts are checked for a lockout before
+// any hashing; -Df1.auth.maxFailures consecutive failures lock an account for
+// -Df1.auth.lockoutSeconds, doubling on each further lockout up to 15 minutes. Failure counts are
+// forgotten after 15 quiet minutes, and at most -Df1.auth.maxTracked emails without an account are
+// tracked at once, so guessing at made-up addresses cannot grow the table. A successful login
+// returns a session token (-Df1.auth.sessionMinutes idle timeout), so later requests look the
+// user up instead of verifying the password again.
+class Credentials {
+    private static final Logger LOG = LoggerFactory.getLogger(Credentials.class);
+    enum Status { OK, BAD_CREDENTIALS, LOCKED, BUSY }
+
+    static final class Outcome {
+        final Status status;
+        final User user;
+        final long retryAfterMs;
+        Outcome(Status status, User user, long retryAfterMs) { this.status = status; this.user = user; this.retryAfterMs = retryAfterMs; }
+    }
+
+    private static final long MAX_LOCKOUT_NANOS = TimeUnit.MINUTES.toNanos(15);
+    private static final long FORGET_AFTER_NANOS = MAX_LOCKOUT_NANOS;
+
+    private static final class Attempts {
+        int failures, lockouts;
+        long lockedUntilNanos, lastFailureNanos;
+    }
+
+    private static final class Session {
+        final User user;
+        volatile long lastSeenNanos;
+        Session(User user, long now) { this.user = user; this.lastSeenNanos = now; }
+    }
+
+    private static final class StoredLogin {
+        final User user;
+        final String hash;
+        StoredLogin(User user, String hash) { this.user = user; this.hash = hash; }
+    }
+
+    private final PasswordHasher hasher;
+    private final ThreadPoolExecutor verifier;
+    private final int maxFailures;
+    private final int maxTracked;
+    private final long lockoutNanos;
+    private final long sessionIdleNanos;
+    // Verified against when the email is unknown, so a miss costs the same as a wrong password.
+    private final String dummyHash;
+    private final Map<String, Attempts> attempts = new ConcurrentHashMap<>();
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final LongAdder verified = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder locked = new LongAdder();
+    private final LongAdder busy = new LongAdder();
+    private final LongAdder untracked = new LongAdder();
+    private final LongAdder rehashed = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+    private final LongAdder hashes = new LongAdder();
+
+    Credentials(int iterations, int threads, int queue, int maxFailures, int maxTracked, long lockoutSeconds, long sessionMinutes) {
+        this.hasher = new PasswordHasher(iterations);
+        this.verifier = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(Math.max(1, queue)), r -> {
+            Thread t = new Thread(r, "credential-verifier");
+            t.setDaemon(true);
+            return t;
+        });
+        this.verifier.allowCoreThreadTimeOut(true);
+        this.maxFailures = Math.max(1, maxFailures);
+        this.maxTracked = Math.max(1, maxTracked);
+        this.lockoutNanos = TimeUnit.SECONDS.toNanos(lockoutSeconds);
+        this.sessionIdleNanos = TimeUnit.MINUTES.toNanos(sessionMinutes);
+        this.dummyHash = hasher.hash(UUID.randomUUID().toString());
+        ScheduledExecutorService janitor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "credentials-janitor");
+            t.setDaemon(true);
+            return t;
+        });
+        janitor.scheduleWithFixedDelay(this::purge, 1, 1, TimeUnit.MINUTES);
+    }
+
+    public CompletableFuture<Outcome> login(String email, String password) {
+        long retryAfter = lockedForMs(email);
+        if (retryAfter > 0) {
+            locked.increment();
+            return CompletableFuture.completedFuture(new Outcome(Status.LOCKED, null, retryAfter));
+        }
+        StoredLogin stored = load(email);
+        CompletableFuture<Boolean> check = onVerifier(() -> hasher.verify(password, stored == null ? dummyHash : stored.hash));
+        return check.handle((ok, error) -> {
+            if (error != null && (error instanceof RejectedExecutionException || error.getCause() instanceof RejectedExecutionException)) {
+                busy.increment();
+                return new Outcome(Status.BUSY, null, 0);
+            }
+            if (error != null) LOG.warn("Password check failed for {}", email, error);
+            if (error != null || stored == null || !ok) {
+                failed.increment();
+                return new Outcome(Status.BAD_CREDENTIALS, null, recordFailure(email, stored != null));
+            }
+            verified.increment();
+            attempts.remove(email);
+            if (hasher.needsRehash(stored.hash)) rehash(email, password);
+            return new Outcome(Status.OK, stored.user, 0);
+        });
+    }
+
+    public CompletableFuture<String> hash(String password) {
+        return onVerifier(() -> hasher.hash(password));
+    }
+
+    PasswordHasher getHasher() { return hasher; }
+
+    public String openSession(User user) {
+        byte[] bytes = new byte[32];
+        new SecureRandom().nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        sessions.put(token, new Session(user, System.nanoTime()));
+        return token;
+    }
+
+    // The user behind a live session token, or null; each lookup extends the idle timeout.
+    public User session(String token) {
+        Session s = sessions.get(token);
+        if (s == null) return null;
+        long now = System.nanoTime();
+        if (now - s.lastSeenNanos > sessionIdleNanos) {
+            sessions.remove(token, s);
+            return null;
+        }
+        s.lastSeenNanos = now;
+        return s.user;
+    }
+
+    public void closeSession(String token) { sessions.remove(token); }
+
+    private <T> CompletableFuture<T> onVerifier(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                long t0 = System.nanoTime();
+                try {
+                    return task.get();
+                } finally {
+                    hashNanos.add(System.nanoTime() - t0);
+                    hashes.increment();
+                }
+            }, verifier);
+        } catch (RejectedExecutionException e) {
+            CompletableFuture<T> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    private long lockedForMs(String email) {
+        Attempts a = attempts.get(email);
+        if (a == null) return 0;
+        synchronized (a) {
+            long left = a.lockedUntilNanos - System.nanoTime();
+            return left > 0 ? TimeUnit.NANOSECONDS.toMillis(left) + 1 : 0;
+        }
+    }
+
+    // Returns how long the account is now locked for, in milliseconds, or 0. Real accounts are
+    // always tracked; made-up emails only while the table has room.
+    private long recordFailure(String email, boolean knownAccount) {
+        Attempts a = attempts.get(email);
+        if (a == null) {
+            if (!knownAccount && attempts.size() >= maxTracked) {
+                untracked.increment();
+                return 0;
+            }
+            a = attempts.computeIfAbsent(email, k -> new Attempts());
+        }
+        synchronized (a) {
+            a.lastFailureNanos = System.nanoTime();
+            if (++a.failures < maxFailures) return 0;
+            a.failures = 0;
+            long lockout = Math.min(MAX_LOCKOUT_NANOS, lockoutNanos << Math.min(a.lockouts++, 20));
+            a.lockedUntilNanos = System.nanoTime() + lockout;
+            return TimeUnit.NANOSECONDS.toMillis(lockout);
+        }
+    }
+
+    private StoredLogin load(String email) {
+        String sql = "SELECT name, email, password_hash, wallet_cents FROM users WHERE email = ?";
+        try (PooledConnection pc = DataManager.getPool().borrow()) {
+            PreparedStatement pstmt = pc.prepare(sql);
+            pstmt.setString(1, email);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    User user = new User(rs.getString("name"), rs.getString("email"), rs.getLong("wallet_cents"));
+                    return new StoredLogin(user, rs.getString("password_hash"));
+                }
+            }
+        } catch (SQLException e) {
+            LOG.warn("Could not load the login for {}", email, e);
+        }
+        return null;
+    }
+
+    // Upgrades an outdated hash in the background; the login does not wait for it.
+    private void rehash(String email, String password) {
+        hash(password).thenAccept(hash -> {
+            String sql = "UPDATE users SET password_hash = ? WHERE email = ?";
+            try (PooledConnection pc = DataManager.getPool().borrow()) {
+                PreparedStatement pstmt = pc.prepare(sql);
+                pstmt.setString(1, hash);
+                pstmt.setString(2, email);
+                pstmt.executeUpdate();
+                rehashed.increment();
+            } catch (SQLException e) {
+                LOG.warn("Could not store the upgraded password hash for {}", email, e);
+            }
+        });
+    }
+
+    private void purge() {
+        long now = System.nanoTime();
+        sessions.values().removeIf(s -> now - s.lastSeenNanos > sessionIdleNanos);
+        attempts.values().removeIf(a -> {
+            synchronized (a) { return a.lockedUntilNanos - now <= 0 && now - a.lastFailureNanos > FORGET_AFTER_NANOS; }
+        });
+    }
+
+    public String stats() {
+        return String.format("credentials[iterations=%d verified=%d failed=%d locked=%d busy=%d rehashed=%d avgHash=%.1fms queued=%d sessions=%d tracked=%d untracked=%d]",
+                hasher.getIterations(), verified.sum(), failed.sum(), locked.sum(), busy.sum(), rehashed.sum(),
+                hashNanos.sum() / 1e6 / Math.max(1, hashes.sum()), verifier.getQueue().size(), sessions.size(), attempts.size(), untracked.sum());
+    }
+}
+
+class BookingRequest {
+    final User user;
+    final SeatingArea area;
+    final int count;
+    final long totalCents;
+    final int fxVersion;
+    final String raceDate;
+    final long enqueuedNanos = System.nanoTime();
+    final CompletableFuture<BookingResult> result = new CompletableFuture<>();
+    BookingRequest(User user, SeatingArea area, int count, long totalCents, int fxVersion, String raceDate) {
+        this.user = user; this.area = area; this.count = count; this.totalCents = totalCents; this.fxVersion = fxVersion; this.raceDate = raceDate;
+    }
+}
+
+// Time-ordered, collision-free ticket IDs. Each ID packs 41 bits of milliseconds since 2025-01-01,
+// a 10-bit node id and a 12-bit per-millisecond sequence, so up to 4096 IDs per millisecond per
+// node. State is a single AtomicLong advanced by CAS: no locks, and the clock never appears to run
+// backwards. The 63-bit value is printed as fixed-width Crockford base32, e.g.
+// F1TKT-01J5Q-8ZK0-00A3, which sorts in issue order and is easy to read back off an e-ticket.
+//
+// A single process uses node 0. Every process sharing a database needs its own -Df1.node.id:
+// claim() records the owner of each node id in ticket_id_nodes with a heartbeat and refuses to
+// start a second live process on the same id. The last issued timestamp is checkpointed there
+// every second, and a restart resumes LEASE_MS past it, so a clock stepped back across a restart
+// (or a crash between checkpoints) cannot reissue an ID.
+class TicketIdGenerator {
+    private static final Logger LOG = LoggerFactory.getLogger(TicketIdGenerator.class);
+    static final long EPOCH_MILLIS = 1735689600000L; // 2025-01-01T00:00:00Z
+    private static final int NODE_BITS = 10, SEQUENCE_BITS = 12;
+    private static final long MAX_NODE = (1L << NODE_BITS) - 1, MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    static final long CHECKPOINT_MS = 1000L, LEASE_MS = 10_000L;
+
+    private final long node;
+    private final boolean explicitNode;
+    private final LongSupplier clock; // wall-clock millis for IDs; tests substitute their own
+    private final String owner = ProcessHandle.current().pid() + "@" + UUID.randomUUID();
+    // (millis since epoch << SEQUENCE_BITS) | sequence of the last issued ID.
+    private final AtomicLong state = new AtomicLong();
+    private ScheduledExecutorService checkpointer;
+
+    TicketIdGenerator(int nodeId) {
+        this(nodeId, true, System::currentTimeMillis);
+    }
+
+    TicketIdGenerator(int nodeId, LongSupplier clock) {
+        this(nodeId, true, clock);
+    }
+
+    private TicketIdGenerator(int nodeId, boolean explicitNode, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE) throw new IllegalArgumentException("Node id must be 0-" + MAX_NODE + ", got " + nodeId);
+        this.node = nodeId;
+        this.explicitNode = explicitNode;
+        this.clock = clock;
+    }
+
+    static TicketIdGenerator configured() {
+        Integer nodeId = Integer.getInteger("f1.node.id");
+        return nodeId == null ? new TicketIdGenerator(0, false, System::currentTimeMillis) : new TicketIdGenerator(nodeId);
+    }
+
+    // Takes ownership of this node id and resumes after its last checkpoint. Throws
+    // IllegalStateException if another live process holds the id.
+    synchronized void claim(Connection conn) throws SQLException {
+        long lastMillis;
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement()) {
+            // Writing first takes the database write lock, so two processes cannot both pass the check.
+            stmt.executeUpdate("INSERT OR IGNORE INTO ticket_id_nodes(node_id, last_millis, heartbeat) VALUES (" + node + ", 0, 0)");
+            try (ResultSet rs = stmt.executeQuery("SELECT owner, last_millis, heartbeat FROM ticket_id_nodes WHERE node_id = " + node)) {
+                rs.next();
+                String holder = rs.getString("owner");
+                long idleMs = System.currentTimeMillis() - rs.getLong("heartbeat");
+                if (holder != null && !holder.equals(owner) && idleMs < LEASE_MS) {
+                    throw new IllegalStateException(explicitNode
+                            ? "Ticket ID node " + node + " is in use by process " + holder + "; pick another -Df1.node.id (0-" + MAX_NODE + ")"
+                            : "Another process (" + holder + ") is issuing ticket IDs from this database; give each process its own -Df1.node.id (0-" + MAX_NODE + ")");
+                }
+                lastMillis = rs.getLong("last_millis");
+            }
+            try (PreparedStatement update = conn.prepareStatement("UPDATE ticket_id_nodes SET owner = ?, heartbeat = ? WHERE node_id = ?")) {
+                update.setString(1, owner);
+                update.setLong(2, System.currentTimeMillis());
+                update.setLong(3, node);
+                update.executeUpdate();
+            }
+            conn.commit();
+        } catch (SQLException | RuntimeException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+        if (lastMillis > 0) {
+            long resume = (lastMillis + LEASE_MS) << SEQUENCE_BITS;
+            state.accumulateAndGet(resume, Math::max);
+        }
+        if (checkpointer == null) {
+            checkpointer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "ticket-id-checkpoint");
+                t.setDaemon(true);
+                return t;
+            });
+            checkpointer.scheduleWithFixedDelay(() -> checkpoint(false), CHECKPOINT_MS, CHECKPOINT_MS, TimeUnit.MILLISECONDS);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> checkpoint(true), "ticket-id-release"));
+        }
+    }
+
+    // Persists the last issued timestamp and refreshes the heartbeat; on release also gives up the id.
+    private void checkpoint(boolean release) {
+        String sql = "UPDATE ticket_id_nodes SET last_millis = MAX(last_millis, ?), heartbeat = ?, owner = ? WHERE node_id = ? AND owner = ?";
+        try (PooledConnection pc = DataManager.getPool().borrow()) {
+            PreparedStatement pstmt = pc.prepare(sql);
+            pstmt.setLong(1, state.get() >>> SEQUENCE_BITS);
+            pstmt.setLong(2, release ? 0L : System.currentTimeMillis());
+            pstmt.setString(3, release ? null : owner);
+            pstmt.setLong(4, node);
+            pstmt.setString(5, owner);
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            LOG.warn("Could not checkpoint ticket ID node {}", node, e);
+        }
+    }
+
+    public String next() {
+        return format(nextLong());
+    }
+
+    long nextLong() {
+        while (true) {
+            long prev = state.get();
+            long prevMillis = prev >>> SEQUENCE_BITS;
+            long now = clock.getAsLong() - EPOCH_MILLIS;
+            long millis, seq;
+            if (now > prevMillis) {
+                millis = now;
+                seq = 0;
+            } else {
+                // Same millisecond or clock moved back: stay on the last timestamp, borrowing the
+                // next millisecond once its sequence is exhausted.
+                millis = prevMillis;
+                seq = (prev & MAX_SEQUENCE) + 1;
+                if (seq > MAX_SEQUENCE) { millis++; seq = 0; }
+            }
+            if (state.compareAndSet(prev, (millis << SEQUENCE_BITS) | seq)) {
+                return (millis << (NODE_BITS + SEQUENCE_BITS)) | (node << SEQUENCE_BITS) | seq;
+            }
+        }
+    }
+
+    static String format(long id) {
+        char[] digits = new char[13];
+        for (int i = 12; i >= 0; i--) {
+            digits[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return "F1TKT-" + new String(digits, 0, 5) + "-" + new String(digits, 5, 4) + "-" + new String(digits, 9, 4);
+    }
+}
+
+// Single-writer group commit: one thread drains up to maxBatch queued bookings, waiting at most
+// lingerMicros for stragglers, and writes them in one transaction with batched statements, so a
+// whole batch shares one fsync. Each booking claims its seats in seating_areas with a relative
+// UPDATE guarded by capacity before its wallet is debited; a claim that matches no row fails the
+// booking as SOLD_OUT, which is what stops processes sharing the database from overselling. If
+// the batch fails as a unit, each request is retried in its own transaction so one bad booking
+// cannot fail its neighbours. At JVM exit a shutdown hook stops new submissions and lets the
+// writer commit what is queued for up to drainMs; anything still queued after that fails with
+// ERROR, so no accepted booking is left with an incomplete future.
+class BookingWriter {
+    private static final Logger LOG = LoggerFactory.getLogger(BookingWriter.class);
+    private static final String CLAIM_SEATS_SQL = "UPDATE seating_areas SET sold_tickets = sold_tickets + ? WHERE unique_id = ? AND sold_tickets + ? <= capacity";
+    private static final String RETURN_SEATS_SQL = "UPDATE seating_areas SET sold_tickets = sold_tickets - ? WHERE unique_id = ?";
+    private static final String UPDATE_WALLET_SQL = "UPDATE users SET wallet_cents = wallet_cents - ? WHERE email = ? AND wallet_cents >= ?";
+    private static final String INSERT_TICKET_SQL = "INSERT INTO tickets(ticket_id, user_email, gp_name, seating_area, ticket_count, total_cents, fx_version, booking_date, race_date) VALUES(?,?,?,?,?,?,?,?,?)";
+    private static final String SELECT_BALANCE_SQL = "SELECT wallet_cents FROM users WHERE email = ?";
+    private static final String SELECT_SOLD_SQL = "SELECT sold_tickets FROM seating_areas WHERE unique_id = ?";
+
+    private final BlockingQueue<BookingRequest> queue = new LinkedBlockingQueue<>();
+    private final int maxBatch;
+    private final long lingerNanos;
+    private final long startedNanos = System.nanoTime();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedRequests = new LongAdder();
+    private final LongAdder committed = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+    private final LongAdder abandoned = new LongAdder();
+    private final LongAdder latencyNanos = new LongAdder();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+    private final AtomicInteger maxBatchSeen = new AtomicInteger();
+    private final Thread writer;
+    private volatile boolean closed;
+
+    public BookingWriter(int maxBatch, long lingerMicros, long drainMs) {
+        this.maxBatch = Math.max(1, maxBatch);
+        this.lingerNanos = TimeUnit.MICROSECONDS.toNanos(Math.max(0, lingerMicros));
+        writer = new Thread(this::run, "booking-writer");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> close(drainMs), "booking-writer-drain"));
+    }
+
+    public CompletableFuture<BookingResult> submit(BookingRequest request) {
+        if (closed) {
+            finish(request, BookingResult.ERROR, 0);
+            return request.result;
+        }
+        queue.add(request);
+        // Lost a race with close(): if nobody has taken the request yet, fail it here.
+        if (closed && queue.remove(request)) finish(request, BookingResult.ERROR, 0);
+        return request.result;
+    }
+
+    // Stops accepting bookings and waits up to timeoutMs for the writer to commit what is queued.
+    // If it has not finished by then it is interrupted, which stops it after the batch it is
+    // writing, and every request it has not taken yet fails with ERROR and gets its seats back.
+    public void close(long timeoutMs) {
+        closed = true;
+        try {
+            writer.join(timeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) writer.interrupt();
+        BookingRequest r;
+        while ((r = queue.poll()) != null) {
+            abandoned.increment();
+            finish(r, BookingResult.ERROR, 0);
+        }
+    }
+
+    private void run() {
+        List<BookingRequest> batch = new ArrayList<>(maxBatch);
+        while (true) {
+            try {
+                BookingRequest first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (closed) return;
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < maxBatch) {
+                    BookingRequest next = queue.poll();
+                    if (next == null) {
+                        long remaining = deadline - System.nanoTime();
+                        if (remaining <= 0) break;
+                        next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                        if (next == null) break;
+                    }
+                    batch.add(next);
+                }
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void process(List<BookingRequest> batch) {
+        batches.increment();
+        batchedRequests.add(batch.size());
+        maxBatchSeen.accumulateAndGet(batch.size(), Math::max);
+        try {
+            writeBatch(batch);
+        } catch (SQLException e) {
+            if (batch.size() == 1) {
+                LOG.warn("Booking write failed", e);
+                finish(batch.get(0), BookingResult.ERROR, 0);
+            } else {
+                fallbacks.increment();
+                for (BookingRequest r : batch) {
+                    try {
+                        writeBatch(Collections.singletonList(r));
+                    } catch (SQLException ex) {
+                        LOG.warn("Booking write failed for {}", r.user.getEmail(), ex);
+                        finish(r, BookingResult.ERROR, 0);
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            LOG.error("Booking batch of {} failed", batch.size(), e);
+            for (BookingRequest r : batch) {
+                if (!r.result.isDone()) finish(r, BookingResult.ERROR, 0);
+            }
+        }
+    }
+
+    // The inventory's commit lock is held until the outcome reaches the counters, so a concurrent
+    // InventoryEngine.rebuild() cannot count these seats as both committed and outstanding.
+    private void writeBatch(List<BookingRequest> batch) throws SQLException {
+        Lock commitLock = DataManager.getInventory().commitLock();
+        commitLock.lock();
+        try {
+            transact(batch);
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    private void transact(List<BookingRequest> batch) throws SQLException {
+        int n = batch.size();
+        BookingResult[] results = new BookingResult[n];
+        long[] balances = new long[n];
+        // sold_tickets of areas whose capacity guard refused a claim: another process got there first.
+        Map<String, Integer> soldElsewhere = new HashMap<>();
+        try (PooledConnection pc = DataManager.getPool().borrow()) {
+            Connection conn = pc.raw();
+            conn.setAutoCommit(false);
+            try {
+                PreparedStatement seats = pc.prepare(CLAIM_SEATS_SQL);
+                for (BookingRequest r : batch) {
+                    seats.setInt(1, r.count);
+                    seats.setString(2, r.area.getUniqueId());
+                    seats.setInt(3, r.count);
+                    seats.addBatch();
+                }
+                int[] claimed = seats.executeBatch();
+
+                // Only requests that got their seats are charged.
+                PreparedStatement wallet = pc.prepare(UPDATE_WALLET_SQL);
+                int charges = 0;
+                for (int i = 0; i < n; i++) {
+                    if (claimed[i] == 0) continue;
+                    BookingRequest r = batch.get(i);
+                    wallet.setLong(1, r.totalCents);
+                    wallet.setString(2, r.user.getEmail());
+                    wallet.setLong(3, r.totalCents);
+                    wallet.addBatch();
+                    charges++;
+                }
+                int[] debited = charges > 0 ? wallet.executeBatch() : new int[0];
+
+                PreparedStatement insert = pc.prepare(INSERT_TICKET_SQL);
+                PreparedStatement giveBack = pc.prepare(RETURN_SEATS_SQL);
+                boolean anyInserts = false, anyReturns = false;
+                for (int i = 0, charge = 0; i < n; i++) {
+                    BookingRequest r = batch.get(i);
+                    if (claimed[i] == 0) {
+                        results[i] = BookingResult.SOLD_OUT;
+                        soldElsewhere.put(r.area.getUniqueId(), null);
+                        continue;
+                    }
+                    if (debited[charge++] == 0) {
+                        results[i] = BookingResult.INSUFFICIENT_FUNDS;
+                        giveBack.setInt(1, r.count);
+                        giveBack.setString(2, r.area.getUniqueId());
+                        giveBack.addBatch();
+                        anyReturns = true;
+                        continue;
+                    }
+                    results[i] = BookingResult.OK;
+                    insert.setString(1, DataManager.nextTicketId());
+                    insert.setString(2, r.user.getEmail());
+                    insert.setString(3, r.area.getGpName());
+                    insert.setString(4, r.area.getName());
+                    insert.setInt(5, r.count);
+                    insert.setLong(6, r.totalCents);
+                    insert.setInt(7, r.fxVersion);
+                    insert.setLong(8, new Date().getTime());
+                    insert.setString(9, r.raceDate);
+                    insert.addBatch();
+                    anyInserts = true;
+                }
+                if (anyInserts) insert.executeBatch();
+                if (anyReturns) giveBack.executeBatch();
+
+                PreparedStatement balance = pc.prepare(SELECT_BALANCE_SQL);
+                for (int i = 0; i < n; i++) {
+                    if (results[i] != BookingResult.OK) continue;
+                    BookingRequest r = batch.get(i);
+                    balance.setString(1, r.user.getEmail());
+                    try (ResultSet rs = balance.executeQuery()) {
+                        balances[i] = rs.next() ? rs.getLong(1) : r.user.getWalletCents() - r.totalCents;
+                    }
+                }
+                if (!soldElsewhere.isEmpty()) {
+                    PreparedStatement sold = pc.prepare(SELECT_SOLD_SQL);
+                    for (Map.Entry<String, Integer> e : soldElsewhere.entrySet()) {
+                        sold.setString(1, e.getKey());
+                        try (ResultSet rs = sold.executeQuery()) {
+                            if (rs.next()) e.setValue(rs.getInt(1));
+                        }
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                DataManager.getMetrics().rollback();
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+        // Adopted before any future completes. Seats this batch committed in those areas are
+        // already in the value read, and finish() adds them again, so they are taken off here.
+        for (int i = 0; i < n; i++) {
+            if (results[i] != BookingResult.OK) continue;
+            BookingRequest r = batch.get(i);
+            soldElsewhere.computeIfPresent(r.area.getUniqueId(), (k, sold) -> sold - r.count);
+        }
+        for (Map.Entry<String, Integer> e : soldElsewhere.entrySet()) {
+            if (e.getValue() != null) DataManager.getInventory().resync(e.getKey(), e.getValue());
+        }
+        for (int i = 0; i < n; i++) finish(batch.get(i), results[i], balances[i]);
+    }
+
+    private void finish(BookingRequest r, BookingResult result, long newBalance) {
+        String areaId = r.area.getUniqueId();
+        if (result == BookingResult.OK) {
+            DataManager.getInventory().commit(areaId, r.count);
+            r.user.setWalletCents(newBalance);
+            DataManager.getEvents().publishWallet(r.user.getEmail(), newBalance);
+            committed.increment();
+        } else {
+            DataManager.getInventory().release(areaId, r.count);
+        }
+        // Failed bookings publish too, since returning their seats changed the count.
+        DataManager.getEvents().publishArea(r.area.getGpName(), areaId, DataManager.getInventory().sold(areaId));
+        long latency = System.nanoTime() - r.enqueuedNanos;
+        latencyNanos.add(latency);
+        maxLatencyNanos.accumulateAndGet(latency, Math::max);
+        r.result.complete(result);
+    }
+
+    public int getQueueDepth() { return queue.size(); }
+    public long getBatches() { return batches.sum(); }
+    public long getFallbacks() { return fallbacks.sum(); }
+    public long getAbandoned() { return abandoned.sum(); }
+
+    public String stats() {
+        long b = Math.max(1, batches.sum());
+        long reqs = Math.max(1, batchedRequests.sum());
+        double seconds = Math.max(1e-9, (System.nanoTime() - startedNanos) / 1e9);
+        return String.format("bookingWriter[batches=%d avgBatch=%.1f maxBatch=%d committed=%d (%.1f/s) fallbacks=%d abandoned=%d avgLatency=%.3fms maxLatency=%.3fms queued=%d]",
+                batches.sum(), batchedRequests.sum() / (double) b, maxBatchSeen.get(), committed.sum(), committed.sum() / seconds,
+                fallbacks.sum(), abandoned.sum(), latencyNanos.sum() / 1e6 / reqs, maxLatencyNanos.get() / 1e6, queue.size());
+    }
+}
+
+// Runs DataManager calls on a small bounded pool so the Swing EDT never waits on SQLite.
+// When the pool and its queue are full, new calls fail fast with RejectedExecutionException
+// rather than queueing without bound. Use onEdt() to handle results back on the EDT.
+class AsyncDataManager {
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncDataManager.class);
+    private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(
+            Integer.getInteger("f1.async.threads", 4), Integer.getInteger("f1.async.threads", 4),
+            30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(Integer.getInteger("f1.async.queue", 256)), r -> {
+                Thread t = new Thread(r, "data-manager-async");
+                t.setDaemon(true);
+                return t;
+            });
+    private static final Executor EDT = SwingUtilities::invokeLater;
+
+    static {
+        EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
+    // The user lookup runs on this pool and the hash check on the credential verifier pool.
+    public static CompletableFuture<Credentials.Outcome> login(String email, String password) {
+        return submit(() -> DataManager.login(email, password)).thenCompose(f -> f);
+    }
+
+    public static CompletableFuture<Boolean> registerUser(String name, String email, String password) {
+        return submit(() -> DataManager.registerUser(name, email, password));
+    }
+
+    public static CompletableFuture<List<SeatingArea>> getSeatingAreasForGP(String gpName) {
+        return submit(() -> DataManager.getSeatingAreasForGP(gpName));
+    }
+
+    public static CompletableFuture<List<Ticket>> getTicketsForUser(String email) {
+        return submit(() -> DataManager.getTicketsForUser(email));
+    }
+
+    public static CompletableFuture<List<Ticket>> getTicketsPage(String email, Ticket after, int limit) {
+        return submit(() -> DataManager.getTicketsPage(email, after, limit));
+    }
+
+    public static CompletableFuture<Integer> countTicketsForUser(String email) {
+        return submit(() -> DataManager.countTicketsForUser(email));
+    }
+
+    // The booking writer is already asynchronous; only the inventory check runs on the pool.
+    public static CompletableFuture<BookingResult> bookTicket(User user, SeatingArea area, int count, String raceDate) {
+        return submit(() -> DataManager.bookTicketAsync(user, area, count, raceDate)).thenCompose(f -> f);
+    }
+
+    public static CompletableFuture<SeatHolds.Placement> placeHold(User user, SeatingArea area, int count) {
+        return submit(() -> DataManager.placeHold(user, area, count));
+    }
+
+    public static CompletableFuture<BookingResult> confirmHold(User user, SeatHold hold, String raceDate) {
+        return submit(() -> DataManager.confirmHoldAsync(user, hold, raceDate)).thenCompose(f -> f);
+    }
+
+    // Delivers the outcome on the EDT; exactly one of value and error is meaningful.
+    public static <T> void onEdt(CompletableFuture<T> future, BiConsumer<T, Throwable> handler) {
+        future.whenCompleteAsync((value, error) -> {
+            if (error != null && !(error.getCause() instanceof RejectedExecutionException)) LOG.warn("Background call failed", error);
+            handler.accept(value, error);
+        }, EDT);
+    }
+
+    private static <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, EXECUTOR);
+        } catch (RejectedExecutionException e) {
+            CompletableFuture<T> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+}
+
+// Times every event the EDT dispatches and counts those that run longer than the stall
+// threshold, which is what a user perceives as a frozen window.
+class EdtMonitor extends EventQueue {
+    private static final LongAdder events = new LongAdder();
+    private static final LongAdder stalls = new LongAdder();
+    private static final AtomicLong maxStallNanos = new AtomicLong();
+    private static volatile long thresholdNanos;
+
+    static void install(long thresholdMs) {
+        if (GraphicsEnvironment.isHeadless()) return;
+        thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMs);
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(new EdtMonitor());
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> System.out.println(stats()), "edt-monitor-report"));
+    }
+
+    // Only touched on the EDT. Bit d is set when the event at nesting depth d pumped a nested
+    // event loop, e.g. a JOptionPane shown from a handler; time spent reading a modal dialog
+    // is not a stall, though events dispatched inside that loop are still measured.
+    private int depth;
+    private long pumpedMask;
+
+    @Override protected void dispatchEvent(AWTEvent event) {
+        if (depth > 0 && depth <= 64) pumpedMask |= 1L << (depth - 1);
+        int level = depth++;
+        long start = System.nanoTime();
+        try {
+            super.dispatchEvent(event);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            depth--;
+            boolean pumped = level < 64 && (pumpedMask & (1L << level)) != 0;
+            if (level < 64) pumpedMask &= ~(1L << level);
+            events.increment();
+            if (!pumped && elapsed > thresholdNanos) {
+                stalls.increment();
+                maxStallNanos.accumulateAndGet(elapsed, Math::max);
+            }
+        }
+    }
+
+    static String stats() {
+        return String.format("edt[events=%d stalls>%dms=%d maxStall=%.1fms]", events.sum(),
+                TimeUnit.NANOSECONDS.toMillis(thresholdNanos), stalls.sum(), maxStallNanos.get() / 1e6);
+    }
+}
+
+// =================================================================================
+// 4. GUI Frames
+// =================================================================================
+class AuthFrame extends JFrame {
+    private CardLayout cardLayout = new CardLayout();
+    private JPanel mainPanel = new JPanel(cardLayout);
+    private JTextField loginEmailField, suNameField, suEmailField;
+    private JPasswordField loginPasswordField, suPasswordField;
+    private JButton loginButton, signupButton;
+    private final Color F1_RED = new Color(225, 6, 0);
+    private final Color DARK_BG = new Color(20, 20, 20);
+    private final Color TEXT_COLOR = Color.WHITE;
+    private final Font LABEL_FONT = new Font("SansSerif", Font.BOLD, 14);
+
+    public AuthFrame() {
+        setTitle("F1 Booking System - Welcome");
+        setSize(450, 550);
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setLocationRelativeTo(null);
+        setResizable(false);
+        mainPanel.add(createLoginPanel(), "LOGIN");
+        mainPanel.add(createSignupPanel(), "SIGNUP");
+        add(mainPanel);
+    }
+
+    private JPanel createLoginPanel() {
+        JPanel panel = createBasePanel("Login");
+        panel.add(createLabel("Email Address:"));
+        loginEmailField = createTextField();
+        addPlaceholder(loginEmailField, "your.email@example.com");
+        panel.add(loginEmailField);
+        panel.add(Box.createVerticalStrut(15));
+        panel.add(createLabel("Password:"));
+        loginPasswordField = createPasswordField();
+        addPlaceholder(loginPasswordField, "Password");
+        panel.add(loginPasswordField);
+        panel.add(Box.createVerticalStrut(30));
+        loginButton = createButton("LOGIN", e -> performLogin());
+        panel.add(loginButton);
+        panel.add(Box.createVerticalStrut(15));
+        panel.add(createLink("Don't have an account? Sign Up", "SIGNUP"));
+        return panel;
+    }
+    
+    private JPanel createSignupPanel() {
+        JPanel panel = createBasePanel("Signup");
+        panel.add(createLabel("Full Name:"));
+        suNameField = createTextField();
+        addPlaceholder(suNameField, "Your Name");
+        panel.add(suNameField);
+        panel.add(Box.createVerticalStrut(15));
+        panel.add(createLabel("Email Address:"));
+        suEmailField = createTextField();
+        addPlaceholder(suEmailField, "your.email@example.com");
+        panel.add(suEmailField);
+        panel.add(Box.createVerticalStrut(15));
+        panel.add(createLabel("Password:"));
+        suPasswordField = createPasswordField();
+        addPlaceholder(suPasswordField, "Password");
+        panel.add(suPasswordField);
+        panel.add(Box.createVerticalStrut(30));
+        signupButton = createButton("SIGN UP", e -> performSignup());
+        panel.add(signupButton);
+        panel.add(Box.createVerticalStrut(15));
+        panel.add(createLink("Already have an account? Login", "LOGIN"));
+        return panel;
+    }
+
+    private JPanel createBasePanel(String subTitle) {
+        JPanel panel = new JPanel();
+        panel.setLayout(new BoxLayout(panel, BoxLayout.Y_AXIS));
+        panel.setBackground(DARK_BG);
+        panel.setBorder(new EmptyBorder(40, 40, 40, 40));
+        JLabel header = new JLabel("F1 2025 Tickets", SwingConstants.CENTER);
+        header.setFont(new Font("Arial", Font.BOLD, 32));
+        header.setForeground(Color.WHITE);
+        header.setAlignmentX(Component.CENTER_ALIGNMENT);
+        panel.add(header);
+        JLabel subHeader = new JLabel(subTitle, SwingConstants.CENTER);
+        subHeader.setFont(new Font("Arial", Font.PLAIN, 18));
+        subHeader.setForeground(Color.LIGHT_GRAY);
+        subHeader.setAlignmentX(Component.CENTER_ALIGNMENT);
+        panel.add(subHeader);
+        panel.add(Box.createVerticalStrut(30));
+        return panel;
+    }
+
+    private void performLogin() { 
+        String email = loginEmailField.getText();
+        String password = new String(loginPasswordField.getPassword());
+        if (email.equals("your.email@example.com") || password.equals("Password")) {
+              JOptionPane.showMessageDialog(this, "Please enter your credentials.", "Login Error", JOptionPane.ERROR_MESSAGE);
+              return;
+        }
+        setBusy(loginButton, true, "LOGGING IN...");
+        AsyncDataManager.onEdt(AsyncDataManager.login(email, password), (outcome, error) -> {
+            setBusy(loginButton, false, "LOGIN");
+            switch (error != null ? Credentials.Status.BUSY : outcome.status) {
+                case OK:
+                    dispose();
+                    new CalendarFrame(outcome.user).setVisible(true);
+                    break;
+                case LOCKED:
+                    JOptionPane.showMessageDialog(this, "Too many failed attempts. Try again in " + (outcome.retryAfterMs + 999) / 1000 + " seconds.", "Login Failed", JOptionPane.ERROR_MESSAGE);
+                    break;
+                case BUSY:
+                    JOptionPane.showMessageDialog(this, "The server is busy, please try again.", "Login Failed", JOptionPane.ERROR_MESSAGE);
+                    break;
+                default:
+                    JOptionPane.showMessageDialog(this, "Invalid credentials.", "Login Failed", JOptionPane.ERROR_MESSAGE);
+            }
+        });
+    }
+
+    private void performSignup() {
+        String name = suNameField.getText();
+        String email = suEmailField.getText();
+        String password = new String(suPasswordField.getPassword());
+        if (name.isEmpty() || email.isEmpty() || password.isEmpty() || 
+            name.equals("Your Name") || email.equals("your.email@example.com") || password.equals("Password")) {
+              JOptionPane.showMessageDialog(this, "All fields are required.", "Signup Error", JOptionPane.ERROR_MESSAGE);
+              return;
+        }
+        setBusy(signupButton, true, "SIGNING UP...");
+        AsyncDataManager.onEdt(AsyncDataManager.registerUser(name, email, password), (registered, error) -> {
+            setBusy(signupButton, false, "SIGN UP");
+            if (error != null) {
+                JOptionPane.showMessageDialog(this, "The server is busy, please try again.", "Signup Failed", JOptionPane.ERROR_MESSAGE);
+            } else if (registered) {
+                JOptionPane.showMessageDialog(this, "Registration successful! Please login.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                cardLayout.show(mainPanel, "LOGIN");
+            } else {
+                JOptionPane.showMessageDialog(this, "This email is already registered.", "Signup Failed", JOptionPane.ERROR_MESSAGE);
+            }
+        });
+    }
+
+    private void setBusy(JButton button, boolean busy, String text) {
+        button.setEnabled(!busy);
+        button.setText(text);
+        setCursor(busy ? Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR) : Cursor.getDefaultCursor());
+    }
+
+    private JLabel createLabel(String text) { 
+        JLabel l = new JLabel(text);
+        l.setForeground(TEXT_COLOR);
+        l.setFont(LABEL_FONT);
+        l.setAlignmentX(Component.LEFT_ALIGNMENT);
+        return l;
+    }
+    private JTextField createTextField() { 
+        JTextField f = new JTextField(20);
+        f.setMaximumSize(new Dimension(Integer.MAX_VALUE, 40));
+        f.setAlignmentX(Component.LEFT_ALIGNMENT);
+        return f;
+    }
+    private JPasswordField createPasswordField() { 
+        JPasswordField f = new JPasswordField(20);
+        f.setMaximumSize(new Dimension(Integer.MAX_VALUE, 40));
+        f.setAlignmentX(Component.LEFT_ALIGNMENT);
+        return f;
+    }
+    private JButton createButton(String text, java.awt.event.ActionListener listener) { 
+        JButton b = new JButton(text);
+        b.setBackground(F1_RED);
+        b.setForeground(Color.BLACK);
+        b.setFont(new Font("SansSerif", Font.BOLD, 16));
+        b.setFocusPainted(false);
+        b.setAlignmentX(Component.CENTER_ALIGNMENT);
+        b.setMaximumSize(new Dimension(Integer.MAX_VALUE, 50));
+        b.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+        b.addActionListener(listener);
+        return b;
+    }
+    private JLabel createLink(String text, String cardName) { 
+        JLabel l = new JLabel("<html><a href='' style='color: #AAAAAA;'>"+text+"</a></html>");
+        l.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+        l.setAlignmentX(Component.CENTER_ALIGNMENT);
+        l.addMouseListener(new MouseAdapter(){
+            public void mouseClicked(MouseEvent e){
+                cardLayout.show(mainPanel,cardName);
+            }
+        });
+        return l;
+    }
+
+    public static void addPlaceholder(JTextField field, String placeholder) {
+        field.setText(placeholder);
+        field.setForeground(Color.GRAY);
+        if (field instanceof JPasswordField) { ((JPasswordField) field).setEchoChar((char) 0); }
+        field.addFocusListener(new FocusAdapter() {
+            @Override
+            public void focusGained(FocusEvent e) {
+                if (field.getText().equals(placeholder)) {
+                    field.setText("");
+                    field.setForeground(Color.BLACK);
+                    if (field instanceof JPasswordField) { ((JPasswordField) field).setEchoChar('*'); }
+                }
+            }
+            @Override
+            public void focusLost(FocusEvent e) {
+                if (field.getText().isEmpty()) {
+                    field.setForeground(Color.GRAY);
+                    field.setText(placeholder);
+                    if (field instanceof JPasswordField) { ((JPasswordField) field).setEchoChar((char) 0); }
+                }
+            }
+        });
+    }
+}
+
+class CalendarFrame extends JFrame {
+    private static final int AVAILABILITY_REFRESH_MS = 5000;
+    private User currentUser;
+    private final Map<String, JLabel> availabilityLabels = new HashMap<>();
+    private final Timer availabilityTimer = new Timer(AVAILABILITY_REFRESH_MS, e -> refreshAvailability());
+    public CalendarFrame(User user) {
+        this.currentUser = user;
+        setTitle("F1 2025 Season Calendar");
+        setSize(1200, 800);
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setLocationRelativeTo(null);
+        JPanel mainPanel = new JPanel(new BorderLayout(10, 10));
+        mainPanel.setBorder(new EmptyBorder(15, 15, 15, 15));
+        JLabel header = new JLabel("Select a Grand Prix", SwingConstants.CENTER);
+        header.setFont(new Font("Arial", Font.BOLD, 32));
+        mainPanel.add(header, BorderLayout.NORTH);
+        
+        JPanel calendarGrid = new JPanel();
+        calendarGrid.setLayout(new BoxLayout(calendarGrid, BoxLayout.Y_AXIS));
+
+        List<GrandPrix> allGPs = DataManager.getAllGrandPrix();
+        warmImageCache(allGPs);
+        for (GrandPrix gp : allGPs) {
+            JButton gpButton = new JButton();
+            gpButton.setLayout(new BorderLayout(10,0));
+            gpButton.setFocusPainted(false);
+            gpButton.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+            gpButton.setPreferredSize(new Dimension(100, 70));
+            gpButton.setMaximumSize(new Dimension(Integer.MAX_VALUE, 70));
+            gpButton.setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createLineBorder(Color.LIGHT_GRAY),
+                BorderFactory.createEmptyBorder(5, 10, 5, 10)
+            ));
+
+            JPanel textPanel = new JPanel(new GridLayout(2,1));
+            textPanel.setOpaque(false);
+            JLabel nameLabel = new JLabel(gp.getName());
+            nameLabel.setFont(new Font("Arial", Font.BOLD, 18));
+            JLabel infoLabel = new JLabel(gp.getCountry() + "  |  " + gp.getDate());
+            infoLabel.setForeground(Color.DARK_GRAY);
+            infoLabel.setFont(new Font("Arial", Font.PLAIN, 14));
+            textPanel.add(nameLabel);
+            textPanel.add(infoLabel);
+            gpButton.add(textPanel, BorderLayout.CENTER);
+
+            JLabel availableLabel = new JLabel();
+            availableLabel.setOpaque(true);
+            availableLabel.setForeground(Color.WHITE);
+            availableLabel.setFont(new Font("Arial", Font.BOLD, 12));
+            availabilityLabels.put(gp.getName(), availableLabel);
+            gpButton.add(availableLabel, BorderLayout.EAST);
+            
+            gpButton.addActionListener(e -> {
+                new BookingFrame(currentUser, gp).setVisible(true);
+            });
+            calendarGrid.add(gpButton);
+            calendarGrid.add(Box.createVerticalStrut(10));
+        }
+        
+        JScrollPane scrollPane = new JScrollPane(calendarGrid);
+        scrollPane.setBorder(null);
+        mainPanel.add(scrollPane, BorderLayout.CENTER);
+        add(mainPanel);
+
+        // The board is in memory, so refreshing every label is cheap enough to do on a timer
+        // and whenever the user comes back from a BookingFrame.
+        refreshAvailability();
+        availabilityTimer.start();
+        addWindowListener(new WindowAdapter() {
+            @Override public void windowActivated(WindowEvent e) { refreshAvailability(); }
+        });
+    }
+
+    @Override public void dispose() {
+        availabilityTimer.stop();
+        super.dispose();
+    }
+
+    private void refreshAvailability() {
+        Map<String, AvailabilityBoard.Summary> board = DataManager.getAvailability().all();
+        for (Map.Entry<String, JLabel> e : availabilityLabels.entrySet()) {
+            AvailabilityBoard.Summary summary = board.get(e.getKey());
+            JLabel label = e.getValue();
+            if (summary == null || summary.areas == 0) {
+                label.setText(" NO SEATING LISTED ");
+                label.setBackground(Color.GRAY);
+                label.setToolTipText(null);
+            } else if (summary.isSoldOut()) {
+                label.setText(" SOLD OUT ");
+                label.setBackground(new Color(231, 76, 60));
+                label.setToolTipText("All " + summary.areas + " seating areas are sold out");
+            } else {
+                String from = Formats.usd(DataManager.getPricing().toUsdCents(summary.cheapestPaise));
+                label.setText(" " + summary.remaining + " SEATS LEFT  |  FROM " + from + " ");
+                label.setBackground(summary.isLimited() ? new Color(230, 126, 34) : new Color(46, 204, 113));
+                label.setToolTipText(summary.soldOutAreas + " of " + summary.areas + " seating areas sold out");
+            }
+        }
+    }
+
+    // Decodes and scales every track map and the e-ticket cover in the background, so
+    // opening a BookingFrame or TicketFrame finds them ready.
+    private void warmImageCache(List<GrandPrix> gps) {
+        List<String> tracks = new ArrayList<>();
+        for (GrandPrix gp : gps) tracks.add(gp.getImagePath());
+        ImageCache.prefetch(tracks, ImageCache.TRACK_WIDTH);
+        ImageCache.prefetch(Collections.singletonList(ImageCache.COVER_PATH), ImageCache.COVER_WIDTH);
+    }
+}
+
+class BookingFrame extends JFrame {
+    private User currentUser;
+    private GrandPrix currentGP;
+    private JLabel walletLabel, trackImageLabel, priceLabel;
+    private JComboBox<SeatingArea> areaSelector;
+    private final SeatingAreaComboModel areaModel = new SeatingAreaComboModel();
+    private InventoryEventBus.Subscription inventorySubscription;
+    private JSpinner ticketSpinner;
+    private JTabbedPane tabbedPane;
+    private JButton bookButton;
+    private PagedTicketListModel ticketListModel;
+    private JList<Ticket> ticketList;
+
+    public BookingFrame(User user, GrandPrix gp) {
+        this.currentUser = user;
+        this.currentGP = gp;
+        setTitle("Booking: " + currentGP.getName());
+        setSize(1200, 800);
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        setLocationRelativeTo(null);
+        createHeaderPanel();
+        tabbedPane = new JTabbedPane();
+        tabbedPane.setFont(new Font("SansSerif", Font.BOLD, 14));
+        tabbedPane.addTab("  Book Tickets  ", createBookingPanel());
+        tabbedPane.addTab("  My Bookings  ", createMyBookingsPanel());
+        add(tabbedPane, BorderLayout.CENTER);
+        loadTrackImage();
+        subscribeToChanges();
+        updateUI();
+        updateMyBookingsTab();
+    }
+
+    // Bookings made from any frame, or over HTTP, patch this frame's seat counts, wallet and
+    // My Bookings list in place. A wallet change means this user booked somewhere, so the list
+    // picks up any tickets it has not seen yet.
+    private void subscribeToChanges() {
+        inventorySubscription = DataManager.getEvents().subscribe(currentGP.getName(), currentUser.getEmail(), EventQueue::invokeLater,
+                new InventoryEventBus.Listener() {
+                    @Override public void onInventoryChanged(Map<String, Integer> soldByArea) { areaModel.applySold(soldByArea); }
+                    @Override public void onWalletChanged(String email, long balanceCents) {
+                        currentUser.setWalletCents(balanceCents);
+                        showWallet(balanceCents);
+                        ticketListModel.refreshCount();
+                    }
+                });
+    }
+
+    @Override public void dispose() {
+        if (inventorySubscription != null) inventorySubscription.cancel();
+        super.dispose();
+    }
+
+    private void createHeaderPanel() {
+        JPanel headerPanel = new JPanel(new BorderLayout(20, 0));
+        headerPanel.setBackground(new Color(30, 30, 30));
+        headerPanel.setBorder(new EmptyBorder(10, 20, 10, 20));
+        JLabel welcomeLabel = new JLabel("Welcome, " + currentUser.getName() + "!");
+        welcomeLabel.setForeground(Color.WHITE);
+        welcomeLabel.setFont(new Font("SansSerif", Font.BOLD, 20));
+        headerPanel.add(welcomeLabel, BorderLayout.WEST);
+        walletLabel = new JLabel();
+        updateWalletLabel();
+        walletLabel.setForeground(new Color(10, 200, 10));
+        walletLabel.setFont(new Font("SansSerif", Font.BOLD, 20));
+        headerPanel.add(walletLabel, BorderLayout.EAST);
+        add(headerPanel, BorderLayout.NORTH);
+    }
+
+    private JComponent createBookingPanel() {
+        JSplitPane splitPane = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT);
+        splitPane.setResizeWeight(0.65);
+        splitPane.setBorder(null);
+        splitPane.setDividerSize(5);
+        trackImageLabel = new JLabel();
+        trackImageLabel.setHorizontalAlignment(SwingConstants.CENTER);
+        trackImageLabel.setBackground(Color.DARK_GRAY);
+        trackImageLabel.setOpaque(true);
+        JScrollPane imageScrollPane = new JScrollPane(trackImageLabel);
+        imageScrollPane.setBorder(null);
+        splitPane.setLeftComponent(imageScrollPane);
+        JPanel controlPanel = new JPanel(new GridBagLayout());
+        controlPanel.setBorder(new EmptyBorder(20, 20, 20, 20));
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.insets = new Insets(10, 5, 10, 5);
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+        gbc.anchor = GridBagConstraints.CENTER;
+        gbc.gridx = 0; gbc.gridwidth = 2;
+        
+        gbc.gridy = 0; controlPanel.add(createStyledLabel("1. Select Seating Area"), gbc);
+        gbc.gridy = 1;
+        areaSelector = new JComboBox<>(areaModel);
+        areaSelector.setFont(new Font("SansSerif", Font.PLAIN, 18));
+        areaSelector.setRenderer(new SeatingAreaRenderer());
+        areaSelector.addActionListener(e -> updatePrice());
+        controlPanel.add(areaSelector, gbc);
+        
+        gbc.gridy = 2; controlPanel.add(Box.createVerticalStrut(20), gbc);
+        
+        gbc.gridy = 3; controlPanel.add(createStyledLabel("2. Number of Tickets"), gbc);
+        gbc.gridy = 4;
+        ticketSpinner = new JSpinner(new SpinnerNumberModel(1, 1, 10, 1));
+        ticketSpinner.setFont(new Font("SansSerif", Font.PLAIN, 18));
+        ticketSpinner.addChangeListener(e -> updatePrice());
+        controlPanel.add(ticketSpinner, gbc);
+
+        gbc.gridy = 5; controlPanel.add(Box.createVerticalStrut(40), gbc);
+
+        gbc.gridy = 6; gbc.gridwidth = 1;
+        priceLabel = createStyledLabel("Total: $0.00");
+        priceLabel.setFont(new Font("SansSerif", Font.BOLD, 22));
+        controlPanel.add(priceLabel, gbc);
+        
+        gbc.gridx = 1;
+        bookButton = new JButton("Book Now");
+        bookButton.setBackground(new Color(225, 6, 0));
+        bookButton.setForeground(Color.BLACK);
+        bookButton.setFont(new Font("SansSerif", Font.BOLD, 18));
+        bookButton.setPreferredSize(new Dimension(150, 50));
+        bookButton.addActionListener(e -> processBooking());
+        controlPanel.add(bookButton, gbc);
+
+        splitPane.setRightComponent(controlPanel);
+        return splitPane;
+    }
+
+    private JComponent createMyBookingsPanel() {
+        JPanel panel = new JPanel(new BorderLayout(10, 10));
+        panel.setBorder(new EmptyBorder(10, 10, 10, 10));
+        ticketListModel = new PagedTicketListModel(currentUser.getEmail(), Integer.getInteger("f1.tickets.pageSize", 50));
+        ticketList = new JList<>(ticketListModel);
+        // A fixed row height lets JList size itself without touching rows that are not loaded yet.
+        ticketList.setPrototypeCellValue(PagedTicketListModel.PROTOTYPE);
+        ticketList.setCellRenderer(new TicketListRenderer());
+        panel.add(new JScrollPane(ticketList), BorderLayout.CENTER);
+        JButton viewTicketButton = new JButton("View Selected E-Ticket");
+        viewTicketButton.setFont(new Font("SansSerif", Font.BOLD, 14));
+        viewTicketButton.addActionListener(e -> viewTicket());
+        panel.add(viewTicketButton, BorderLayout.SOUTH);
+        return panel;
+    }
+
+    // The track map never changes while the frame is open, so it is loaded once, not per refresh.
+    private void loadTrackImage() {
+        trackImageLabel.setText("Loading track map...");
+        AsyncDataManager.onEdt(ImageCache.getAsync(currentGP.getImagePath(), ImageCache.TRACK_WIDTH), (img, error) -> {
+            if (error != null) {
+                trackImageLabel.setIcon(null);
+                trackImageLabel.setText("Image not found: " + currentGP.getImagePath());
+            } else {
+                trackImageLabel.setText(null);
+                trackImageLabel.setIcon(new ImageIcon(img));
+            }
+        });
+    }
+
+    private void updateUI() {
+        areaSelector.setEnabled(false);
+        AsyncDataManager.onEdt(AsyncDataManager.getSeatingAreasForGP(currentGP.getName()), (areas, error) -> {
+            areaSelector.setEnabled(true);
+            if (error != null) return;
+            areaModel.setAll(areas);
+            updatePrice();
+        });
+    }
+
+    private void updateMyBookingsTab() {
+        ticketListModel.reload();
+    }
+
+    private void updatePrice() {
+        SeatingArea selectedArea = (SeatingArea) areaSelector.getSelectedItem();
+        int ticketCount = (int) ticketSpinner.getValue();
+        if (selectedArea == null) {
+            priceLabel.setText("Total Price: $0.00");
+            return;
+        }
+        priceLabel.setText("Total: " + Formats.usd(selectedArea.getPrices().totalCents(ticketCount)));
+    }
+
+    private void updateWalletLabel() {
+        showWallet(currentUser.getWalletCents());
+    }
+
+    private void showWallet(long balanceCents) {
+        walletLabel.setText("Wallet: " + Formats.usd(balanceCents));
+    }
+    
+    private void viewTicket() {
+        Ticket selected = ticketList.getSelectedValue();
+        if (selected == null) {
+            JOptionPane.showMessageDialog(this, "Please select a ticket from the list first.", "No Ticket Selected", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        GrandPrix selectedGP = DataManager.getGrandPrix(selected.getGrandPrixName());
+        new TicketFrame(currentUser, selected, selectedGP).setVisible(true);
+    }
+
+    private void processBooking() {
+        SeatingArea area = (SeatingArea) areaSelector.getSelectedItem();
+        int count = (int) ticketSpinner.getValue();
+        if (area == null || area.isSoldOut()) {
+            JOptionPane.showMessageDialog(this, "This seating area is sold out.", "Booking Error", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        if (count > area.getTicketsLeft()) {
+            JOptionPane.showMessageDialog(this, "Not enough tickets available. Only " + area.getTicketsLeft() + " left.", "Booking Error", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        if (currentUser.getWalletCents() < DataManager.quote(area).totalCents(count)) {
+            JOptionPane.showMessageDialog(this, "Insufficient funds.", "Payment Failed", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        // Hold the seats before asking, so the confirm dialog cannot end in a sell-out.
+        bookButton.setEnabled(false);
+        bookButton.setText("Holding seats...");
+        AsyncDataManager.onEdt(AsyncDataManager.placeHold(currentUser, area, count), (placement, error) -> {
+            SeatHold hold = error == null ? placement.hold : null;
+            if (hold == null) {
+                bookButton.setEnabled(true);
+                bookButton.setText("Book Now");
+                if (error != null) {
+                    JOptionPane.showMessageDialog(this, failureMessage(error), "Booking Error", JOptionPane.ERROR_MESSAGE);
+                } else if (placement.status == SeatHolds.Status.LIMIT_REACHED) {
+                    JOptionPane.showMessageDialog(this, "You already have the maximum number of seat holds open.\nConfirm or release one, or wait for it to expire.", "Booking Error", JOptionPane.WARNING_MESSAGE);
+                } else if (placement.status == SeatHolds.Status.QUEUED) {
+                    showQueued(area.getGpName());
+                } else {
+                    updateUI();
+                    JOptionPane.showMessageDialog(this, "Not enough tickets left in this area. Availability has been refreshed.", "Booking Error", JOptionPane.WARNING_MESSAGE);
+                }
+                return;
+            }
+            long minutes = Math.max(1, TimeUnit.MILLISECONDS.toMinutes(hold.millisLeft()));
+            String message = count + " seat(s) in " + area.getName() + " are held for you for " + minutes + " minute(s).\n"
+                    + "Confirm booking for " + Formats.usd(hold.totalCents) + "?";
+            int choice = JOptionPane.showConfirmDialog(this, message, "Confirm", JOptionPane.YES_NO_OPTION);
+            if (choice != JOptionPane.YES_OPTION) {
+                DataManager.releaseHold(hold);
+                bookButton.setEnabled(true);
+                bookButton.setText("Book Now");
+                return;
+            }
+            confirmHold(hold);
+        });
+    }
+
+    private void confirmHold(SeatHold hold) {
+        bookButton.setText("Booking...");
+        AsyncDataManager.onEdt(AsyncDataManager.confirmHold(currentUser, hold, currentGP.getDate()), (result, error) -> {
+            bookButton.setEnabled(true);
+            bookButton.setText("Book Now");
+            switch (error != null ? BookingResult.ERROR : result) {
+                case OK:
+                    updateWalletLabel();
+                    ticketListModel.ticketAdded();
+                    JOptionPane.showMessageDialog(this, "Booking successful!", "Success", JOptionPane.INFORMATION_MESSAGE);
+                    tabbedPane.setSelectedIndex(1);
+                    break;
+                case SOLD_OUT:
+                    updateUI();
+                    JOptionPane.showMessageDialog(this, "Not enough tickets left in this area. Availability has been refreshed.", "Booking Error", JOptionPane.WARNING_MESSAGE);
+                    break;
+                case INSUFFICIENT_FUNDS:
+                    JOptionPane.showMessageDialog(this, "Insufficient funds.", "Payment Failed", JOptionPane.ERROR_MESSAGE);
+                    break;
+                case QUEUED:
+                    showQueued(hold.area.getGpName()); // the hold stays put until it expires
+                    break;
+                default:
+                    JOptionPane.showMessageDialog(this, "Booking failed due to a database error.", "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        });
+    }
+
+    // The desktop client waits in the same line as the HTTP one; pressing Book again polls it.
+    private void showQueued(String gpName) {
+        WaitingRoom.Pass pass = DataManager.admission(gpName, currentUser);
+        String message = pass.isAdmitted() ? "It's your turn. Please try again."
+                : pass.status == WaitingRoom.Status.REJECTED ? "The waiting room for the " + gpName + " is full. Please try again later."
+                : "You are number " + pass.position + " in line for the " + gpName + ", about "
+                        + Math.max(1, TimeUnit.MILLISECONDS.toSeconds(pass.estimatedWaitMs)) + " second(s) from now.\nPlease try again then.";
+        JOptionPane.showMessageDialog(this, message, "Waiting Room", JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    // A call that failed is reported as what it was, never as a sell-out.
+    private static String failureMessage(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof RejectedExecutionException) return "The booking service is busy. Please try again in a moment.";
+        return "Could not hold seats: " + cause.getMessage();
+    }
+
+    private JLabel createStyledLabel(String text) {
+        JLabel label = new JLabel(text);
+        label.setFont(new Font("SansSerif", Font.BOLD, 18));
+        return label;
+    }
+}
+
+// Decoded, pre-scaled images keyed by path and target width, bounded by total pixel memory
+// (-Df1.imageCache.maxMB, default 64) with LRU eviction. Decoding and scaling run on a small
+// background pool, and concurrent requests for the same image share one load.
+class ImageCache {
+    static final int TRACK_WIDTH = 800;
+    static final int COVER_WIDTH = 150;
+    static final String COVER_PATH = "assets/cover image.jpg";
+
+    private static final long MAX_BYTES = Long.getLong("f1.imageCache.maxMB", 64L) * 1024 * 1024;
+    private static final Map<String, BufferedImage> images = new LinkedHashMap<>(16, 0.75f, true);
+    private static final Map<String, CompletableFuture<BufferedImage>> loading = new ConcurrentHashMap<>();
+    private static final ExecutorService LOADER = Executors.newFixedThreadPool(2, r -> {
+        Thread t = new Thread(r, "image-loader");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+    private static long bytes;
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+
+    private static String key(String path, int width) { return path + "@" + width; }
+
+    static synchronized BufferedImage peek(String path, int width) {
+        BufferedImage img = images.get(key(path, width));
+        if (img != null) hits.increment();
+        return img;
+    }
+
+    static CompletableFuture<BufferedImage> getAsync(String path, int width) {
+        BufferedImage cached = peek(path, width);
+        if (cached != null) return CompletableFuture.completedFuture(cached);
+        String key = key(path, width);
+        CompletableFuture<BufferedImage> shared = new CompletableFuture<>();
+        CompletableFuture<BufferedImage> inFlight = loading.putIfAbsent(key, shared);
+        if (inFlight != null) return inFlight;
+        misses.increment();
+        // Only the caller that registered `shared` starts the load, and the completion callback
+        // runs outside any map operation. The image is cached and the entry removed (only if it is
+        // still ours) before waiters are woken, so they never see a finished load in `loading`.
+        CompletableFuture.supplyAsync(() -> load(path, width), LOADER).whenComplete((img, error) -> {
+            if (img != null) put(key, img);
+            loading.remove(key, shared);
+            if (error != null) shared.completeExceptionally(error);
+            else shared.complete(img);
+        });
+        return shared;
+    }
+
+    static void prefetch(List<String> paths, int width) {
+        for (String path : paths) getAsync(path, width);
+    }
+
+    private static BufferedImage load(String path, int width) {
+        try {
+            BufferedImage src = ImageIO.read(new File(path));
+            if (src == null) throw new IOException("Unsupported image format: " + path);
+            return scaleToWidth(src, width);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static synchronized void put(String key, BufferedImage img) {
+        BufferedImage old = images.put(key, img);
+        if (old != null) bytes -= sizeOf(old);
+        bytes += sizeOf(img);
+        Iterator<Map.Entry<String, BufferedImage>> it = images.entrySet().iterator();
+        while (bytes > MAX_BYTES && it.hasNext()) {
+            Map.Entry<String, BufferedImage> eldest = it.next();
+            if (eldest.getKey().equals(key)) continue;
+            bytes -= sizeOf(eldest.getValue());
+            it.remove();
+        }
+    }
+
+    private static long sizeOf(BufferedImage img) { return 4L * img.getWidth() * img.getHeight(); }
+
+    // Scales with Java2D instead of getScaledInstance: halve with bilinear filtering while the
+    // image is more than twice the target, then one final bilinear pass. This matches
+    // SCALE_SMOOTH quality closely at a fraction of the cost.
+    static BufferedImage scaleToWidth(BufferedImage src, int width) {
+        int height = Math.max(1, (int) Math.round(src.getHeight() * (double) width / src.getWidth()));
+        BufferedImage current = src;
+        int w = src.getWidth(), h = src.getHeight();
+        while (w / 2 >= width) {
+            w /= 2;
+            h = Math.max(1, h / 2);
+            current = draw(current, w, h);
+        }
+        return draw(current, width, height);
+    }
+
+    private static BufferedImage draw(BufferedImage src, int w, int h) {
+        int type = src.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage out = new BufferedImage(w, h, type);
+        Graphics2D g = out.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g.drawImage(src, 0, 0, w, h, null);
+        g.dispose();
+        return out;
+    }
+
+    static synchronized String stats() {
+        return String.format("imageCache[images=%d bytes=%d/%d hits=%d misses=%d]", images.size(), bytes, MAX_BYTES, hits.sum(), misses.sum());
+    }
+}
+
+// =================================================================================
+// 5. Other GUI Classes
+// =================================================================================
+class TicketFrame extends JFrame {
+    private final JPanel ticketContentPanel; // Panel that holds the ticket content
+    private final Ticket ticket;
+    public TicketFrame(User user, Ticket ticket, GrandPrix gp) {
+        this.ticket = ticket;
+        setTitle("Your E-Ticket: " + ticket.getGrandPrixName());
+        setSize(500, 750);
+        setLocationRelativeTo(null);
+        setResizable(false);
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        
+        JPanel mainPanel = new JPanel(new BorderLayout()); 
+        
+        ticketContentPanel = new JPanel(new BorderLayout());
+        ticketContentPanel.setBackground(Color.WHITE);
+        
+        JPanel headerPanel = new JPanel();
+        headerPanel.setBackground(new Color(20, 20, 40));
+        headerPanel.setBorder(new EmptyBorder(10, 10, 10, 10));
+        JLabel headerLabel = new JLabel("TICKETS");
+        headerLabel.setFont(new Font("Arial", Font.BOLD, 28));
+        headerLabel.setForeground(Color.WHITE);
+        headerPanel.add(headerLabel);
+        ticketContentPanel.add(headerPanel, BorderLayout.NORTH);
+        
+        JPanel detailsPanel = createTicketDetailsPanel(user, ticket, gp);
+        ticketContentPanel.add(detailsPanel, BorderLayout.CENTER);
+        
+        JPanel footerPanel = createFooterPanel();
+        ticketContentPanel.add(footerPanel, BorderLayout.SOUTH);
+        
+        mainPanel.add(ticketContentPanel, BorderLayout.CENTER);
+
+        JButton saveButton = new JButton("Save as Picture");
+        saveButton.setFont(new Font("SansSerif", Font.BOLD, 16));
+        saveButton.addActionListener(e -> saveTicketAsImage());
+        
+        JPanel buttonPanel = new JPanel();
+        buttonPanel.setBorder(new EmptyBorder(10,10,10,10));
+        buttonPanel.add(saveButton);
+        mainPanel.add(buttonPanel, BorderLayout.SOUTH);
+        
+        add(mainPanel);
+    }
+
+    private JPanel createTicketDetailsPanel(User user, Ticket ticket, GrandPrix gp) {
+        JPanel panel = new JPanel(new BorderLayout(10, 10));
+        panel.setBorder(new EmptyBorder(20, 20, 20, 20));
+        panel.setBackground(Color.WHITE);
+
+        // Grid for details
+        JPanel infoGrid = new JPanel(new GridLayout(4, 2, 10, 5));
+        infoGrid.setOpaque(false);
+        infoGrid.add(createDetailRow("Purchaser:", user.getName()));
+        infoGrid.add(createDetailRow("Event:", ticket.getGrandPrixName()));
+        infoGrid.add(createDetailRow("Venue:", gp != null ? gp.getCountry() : "-"));
+        infoGrid.add(createDetailRow("Date:", ticket.getRaceDate()));
+        infoGrid.add(createDetailRow("Seat:", ticket.getSeatingAreaName()));
+        infoGrid.add(createDetailRow("Quantity:", String.valueOf(ticket.getTicketCount())));
+        infoGrid.add(createDetailRow("Total Price:", Formats.usd(ticket.getTotalCents())));
+        
+        // Serial number panel below the grid
+        JPanel serialPanel = new JPanel(new BorderLayout());
+        serialPanel.setBorder(BorderFactory.createTitledBorder("Serial Number"));
+        JLabel serialLabel = new JLabel(ticket.getTicketId(), SwingConstants.CENTER);
+        serialLabel.setFont(new Font("Monospaced", Font.BOLD, 18));
+        serialPanel.add(serialLabel, BorderLayout.CENTER);
+        
+        // Main details panel with the grid and serial number
+        JPanel mainDetailsPanel = new JPanel();
+        mainDetailsPanel.setLayout(new BoxLayout(mainDetailsPanel, BoxLayout.Y_AXIS));
+        mainDetailsPanel.add(infoGrid);
+        mainDetailsPanel.add(Box.createVerticalStrut(20)); // Spacing
+        mainDetailsPanel.add(serialPanel);
+        
+        panel.add(mainDetailsPanel, BorderLayout.NORTH);
+        
+        return panel;
+    }
+
+    private JPanel createFooterPanel() {
+        JPanel contentPanel = new JPanel(new BorderLayout(15, 0));
+        contentPanel.setBorder(new EmptyBorder(10, 20, 10, 20));
+        contentPanel.setBackground(new Color(240, 240, 240));
+        
+        JPanel termsPanel = new JPanel(new GridLayout(2, 1, 0, 5));
+        termsPanel.setOpaque(false);
+        JLabel termsTitle = new JLabel("IMPORTANT INFORMATION:");
+        termsTitle.setFont(new Font("SansSerif", Font.BOLD, 12));
+        termsTitle.setForeground(new Color(20, 20, 40));
+        termsPanel.add(termsTitle);
+        
+        JLabel terms1 = new JLabel("<html>1. This ticket is non-transferable.</html>");
+        terms1.setFont(new Font("SansSerif", Font.PLAIN, 12));
+        termsPanel.add(terms1);
+        
+        JLabel terms2 = new JLabel("<html>2. All sales are final. No refunds.</html>");
+        terms2.setFont(new Font("SansSerif", Font.PLAIN, 12));
+        termsPanel.add(terms2);
+        
+        contentPanel.add(termsPanel, BorderLayout.CENTER);
+        
+        JLabel imageLabel = new JLabel();
+        BufferedImage cached = ImageCache.peek(ImageCache.COVER_PATH, ImageCache.COVER_WIDTH);
+        if (cached != null) {
+            imageLabel.setIcon(new ImageIcon(cached));
+        } else {
+            AsyncDataManager.onEdt(ImageCache.getAsync(ImageCache.COVER_PATH, ImageCache.COVER_WIDTH), (img, error) -> {
+                if (error != null) {
+                    imageLabel.setText("Image not found");
+                } else {
+                    imageLabel.setIcon(new ImageIcon(img));
+                }
+                contentPanel.revalidate();
+            });
+        }
+        contentPanel.add(imageLabel, BorderLayout.EAST);
+        return contentPanel;
+    }
+
+    private JPanel createDetailRow(String title, String value) {
+        JPanel row = new JPanel(new BorderLayout());
+        row.setOpaque(false);
+        JLabel titleLabel = new JLabel(title);
+        titleLabel.setFont(new Font("SansSerif", Font.PLAIN, 14));
+        titleLabel.setForeground(Color.GRAY);
+        JLabel valueLabel = new JLabel(value);
+        valueLabel.setFont(new Font("SansSerif", Font.BOLD, 16));
+        row.add(titleLabel, BorderLayout.NORTH);
+        row.add(valueLabel, BorderLayout.CENTER);
+        return row;
+    }
+
+    private void saveTicketAsImage() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Save Ticket as PNG");
+        fileChooser.setSelectedFile(new File(ticket.getGrandPrixName().replace(" ", "_") + "_Ticket.png"));
+        int userSelection = fileChooser.showSaveDialog(this);
+        if (userSelection == JFileChooser.APPROVE_OPTION) {
+            File fileToSave = fileChooser.getSelectedFile();
+            BufferedImage image = new BufferedImage(ticketContentPanel.getWidth(), ticketContentPanel.getHeight(), BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g2d = image.createGraphics();
+            ticketContentPanel.paint(g2d);
+            g2d.dispose();
+            try {
+                ImageIO.write(image, "png", fileToSave);
+                JOptionPane.showMessageDialog(this, "Ticket saved successfully as an image!", "Success", JOptionPane.INFORMATION_MESSAGE);
+            } catch (IOException ex) {
+                JOptionPane.showMessageDialog(this, "Error saving image: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+}
+
+// "My Bookings" list model that loads a user's tickets a page at a time as rows scroll into view.
+// The size comes from a COUNT up front; rows not loaded yet read as null ("Loading...") and
+// trigger a keyset fetch of the next page. All state is touched only on the EDT.
+class PagedTicketListModel extends AbstractListModel<Ticket> {
+    static final Ticket PROTOTYPE = new Ticket("F1TKT-00000-0000-0000", "", "United States Grand Prix", "Caesar's Palace Experience", 10, 9_999_999L, 1, new Date(0), "");
+
+    private final String email;
+    private final int pageSize;
+    private final List<Ticket> loaded = new ArrayList<>();
+    private int total;
+    private boolean fetching;
+    private int generation; // bumped by reload() so responses for a stale load are dropped
+
+    PagedTicketListModel(String email, int pageSize) {
+        this.email = email;
+        this.pageSize = Math.max(1, pageSize);
+    }
+
+    @Override public int getSize() { return total; }
+
+    @Override public Ticket getElementAt(int index) {
+        if (index < loaded.size()) return loaded.get(index);
+        fetchNextPage();
+        return null;
+    }
+
+    void reload() {
+        int gen = ++generation;
+        int oldSize = total;
+        loaded.clear();
+        total = 0;
+        fetching = false;
+        if (oldSize > 0) fireIntervalRemoved(this, 0, oldSize - 1);
+        AsyncDataManager.onEdt(AsyncDataManager.countTicketsForUser(email), (count, error) -> {
+            if (gen != generation || error != null || count == 0) return;
+            total = count;
+            fireIntervalAdded(this, 0, total - 1);
+            fetchNextPage();
+        });
+    }
+
+    // Called after a booking commits: grows the list by one row instead of reloading history.
+    // If everything so far is loaded, the new ticket is fetched right away.
+    void ticketAdded() {
+        boolean complete = loaded.size() == total;
+        total++;
+        fireIntervalAdded(this, total - 1, total - 1);
+        if (complete) fetchNextPage();
+    }
+
+    // Called when tickets may have been booked elsewhere (another frame, HTTP). Recounts and, if
+    // the count grew, appends placeholder rows and fetches them; a no-op for this frame's own
+    // bookings, which ticketAdded() has already counted.
+    void refreshCount() {
+        int gen = generation;
+        AsyncDataManager.onEdt(AsyncDataManager.countTicketsForUser(email), (count, error) -> {
+            if (gen != generation || error != null || count <= total) return;
+            int oldTotal = total;
+            total = count;
+            fireIntervalAdded(this, oldTotal, total - 1);
+            fetchNextPage();
+        });
+    }
+
+    private void fetchNextPage() {
+        if (fetching || loaded.size() >= total) return;
+        fetching = true;
+        int gen = generation;
+        Ticket after = loaded.isEmpty() ? null : loaded.get(loaded.size() - 1);
+        AsyncDataManager.onEdt(AsyncDataManager.getTicketsPage(email, after, pageSize), (page, error) -> {
+            if (gen != generation) return;
+            fetching = false;
+            if (error != null) return;
+            int from = loaded.size();
+            loaded.addAll(page);
+            if (loaded.size() > total) {
+                int oldTotal = total;
+                total = loaded.size();
+                fireIntervalAdded(this, oldTotal, total - 1);
+            } else if (page.size() < pageSize && loaded.size() < total) {
+                // Fewer rows than counted: the end was reached, so drop the placeholders.
+                int oldTotal = total;
+                total = loaded.size();
+                fireIntervalRemoved(this, total, oldTotal - 1);
+            }
+            if (!page.isEmpty()) fireContentsChanged(this, from, Math.min(total, from + page.size()) - 1);
+        });
+    }
+}
+
+// Combo box model for a Grand Prix's seating areas. applySold() swaps in fresh snapshots for the
+// areas that changed and repaints only those rows; the selection follows the area by id.
+class SeatingAreaComboModel extends AbstractListModel<SeatingArea> implements ComboBoxModel<SeatingArea> {
+    private final List<SeatingArea> areas = new ArrayList<>();
+    private SeatingArea selected;
+
+    void setAll(List<SeatingArea> next) {
+        String selectedId = selected == null ? null : selected.getUniqueId();
+        int oldSize = areas.size();
+        areas.clear();
+        if (oldSize > 0) fireIntervalRemoved(this, 0, oldSize - 1);
+        areas.addAll(next);
+        if (!areas.isEmpty()) fireIntervalAdded(this, 0, areas.size() - 1);
+        SeatingArea match = areas.isEmpty() ? null : areas.get(0);
+        for (SeatingArea a : areas) {
+            if (a.getUniqueId().equals(selectedId)) { match = a; break; }
+        }
+        setSelectedItem(match);
+    }
+
+    void applySold(Map<String, Integer> soldByArea) {
+        for (int i = 0; i < areas.size(); i++) {
+            SeatingArea a = areas.get(i);
+            Integer sold = soldByArea.get(a.getUniqueId());
+            if (sold == null || sold == a.getSoldTickets()) continue;
+            SeatingArea patched = a.withSoldTickets(sold);
+            areas.set(i, patched);
+            if (a == selected) {
+                selected = patched;
+                fireContentsChanged(this, -1, -1);
+            }
+            fireContentsChanged(this, i, i);
+        }
+    }
+
+    @Override public int getSize() { return areas.size(); }
+    @Override public SeatingArea getElementAt(int index) { return areas.get(index); }
+    @Override public Object getSelectedItem() { return selected; }
+    @Override public void setSelectedItem(Object item) {
+        if (item == selected) return;
+        selected = (SeatingArea) item;
+        fireContentsChanged(this, -1, -1);
+    }
+}
+
+class TicketListRenderer extends DefaultListCellRenderer {
+    private static final EmptyBorder CELL_BORDER = new EmptyBorder(10, 15, 10, 15);
+    private static final Color STRIPE = new Color(240, 240, 240);
+    private static final String LOADING = "<html><i>Loading...</i><br>&nbsp;<br>&nbsp;</html>";
+    @Override
+    public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+        JLabel label = (JLabel) super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+        if (value == null) label.setText(LOADING);
+        label.setBorder(CELL_BORDER);
+        label.setVerticalAlignment(SwingConstants.TOP);
+        if(!isSelected) {
+            label.setBackground(index % 2 == 0 ? STRIPE : Color.WHITE);
+        }
+        return label;
+    }
+}
+
+class SeatingAreaRenderer extends DefaultListCellRenderer {
+    @Override
+    public Component getListCellRendererComponent(JList list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+        super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+        if (value instanceof SeatingArea) {
+            SeatingArea area = (SeatingArea) value;
+            if (area.isSoldOut()) {
+                setEnabled(false);
+                setForeground(Color.GRAY);
+            } else {
+                setEnabled(true);
+                setForeground(Color.BLACK);
+            }
+        }
+        return this;
+    }
+}
+// =================================================================================
+// 6. Headless Booking Server
+// =================================================================================
+// Serves the DataManager booking flow over the JDK's built-in HTTP server, one thread per
+// request. Started with: java f1.F1BookingSystem --server [port]
+// It listens on localhost unless -Df1.server.host names another interface. Anything that changes
+// state is POST-only with form-encoded bodies, so a plain link cannot book. The session token is
+// only accepted from an "Authorization: Bearer <token>" header, never from the URL, so it stays
+// out of access logs and browser history.
+class BookingServer {
+    private static final Logger LOG = LoggerFactory.getLogger(BookingServer.class);
+    private static final String GET = "GET", POST = "POST";
+
+    public static HttpServer start(String host, int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        server.createContext("/register", ex -> handle(ex, POST, BookingServer::register));
+        server.createContext("/login", ex -> handle(ex, POST, BookingServer::login));
+        server.createContext("/logout", ex -> handle(ex, POST, BookingServer::logout));
+        server.createContext("/calendar", ex -> handle(ex, GET, BookingServer::calendar));
+        server.createContext("/areas", ex -> handle(ex, GET, BookingServer::areas));
+        server.createContext("/book", ex -> handle(ex, POST, BookingServer::book));
+        server.createContext("/hold", ex -> handle(ex, POST, BookingServer::hold));
+        server.createContext("/confirm", ex -> handle(ex, POST, BookingServer::confirm));
+        server.createContext("/release", ex -> handle(ex, POST, BookingServer::release));
+        server.createContext("/queue", ex -> handle(ex, POST, BookingServer::queue));
+        server.createContext("/tickets", ex -> handle(ex, GET, BookingServer::tickets));
+        server.createContext("/diagnostics", ex -> handle(ex, GET, BookingServer::diagnostics));
+        server.setExecutor(newRequestExecutor());
+        server.start();
+        System.out.println("F1 booking server listening on " + host + ":" + port);
+        return server;
+    }
+
+    // Virtual threads when the runtime has them (JDK 21+), otherwise a cached platform pool.
+    static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "http-worker");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    interface Handler { Response apply(Map<String, String> params) throws Exception; }
+
+    static final class Response {
+        final int status; final String body;
+        Response(int status, String body) { this.status = status; this.body = body; }
+    }
+
+    private static void handle(HttpExchange ex, String method, Handler handler) throws IOException {
+        Response response;
+        try {
+            if (!method.equalsIgnoreCase(ex.getRequestMethod())) {
+                ex.getResponseHeaders().set("Allow", method);
+                response = error(405, "Use " + method);
+            } else {
+                response = handler.apply(params(ex));
+            }
+        } catch (IllegalArgumentException e) {
+            response = error(400, e.getMessage());
+        } catch (Exception e) {
+            LOG.error("Request to {} failed", ex.getRequestURI().getPath(), e);
+            response = error(500, "Internal error");
+        }
+        byte[] bytes = response.body.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(response.status, bytes.length);
+        try (OutputStream os = ex.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    private static Response register(Map<String, String> p) {
+        if (!DataManager.registerUser(required(p, "name"), required(p, "email"), required(p, "password"))) {
+            return error(409, "This email is already registered");
+        }
+        return ok("{\"registered\":true}");
+    }
+
+    private static Response login(Map<String, String> p) {
+        Credentials.Outcome outcome = DataManager.login(required(p, "email"), required(p, "password")).join();
+        switch (outcome.status) {
+            case OK:
+                String token = DataManager.getCredentials().openSession(outcome.user);
+                return ok("{\"token\":" + json(token) + ",\"user\":" + userJson(outcome.user) + "}");
+            case LOCKED:
+                return new Response(423, "{\"error\":\"Account temporarily locked\",\"retryAfterMs\":" + outcome.retryAfterMs + "}");
+            case BUSY:
+                return error(503, "Too many logins in progress, try again");
+            default:
+                return error(401, "Invalid credentials");
+        }
+    }
+
+    private static Response logout(Map<String, String> p) {
+        DataManager.getCredentials().closeSession(required(p, TOKEN));
+        return ok("{\"loggedOut\":true}");
+    }
+
+    private static Response calendar(Map<String, String> p) {
+        StringBuilder sb = new StringBuilder("[");
+        for (GrandPrix gp : DataManager.getAllGrandPrix()) {
+            if (sb.length() > 1) sb.append(',');
+            sb.append("{\"id\":").append(gp.getId())
+              .append(",\"name\":").append(json(gp.getName()))
+              .append(",\"country\":").append(json(gp.getCountry()))
+              .append(",\"date\":").append(json(gp.getDate()));
+            AvailabilityBoard.Summary a = DataManager.getAvailability().get(gp.getName());
+            if (a != null) {
+                sb.append(",\"seatsLeft\":").append(a.remaining)
+                  .append(",\"soldOutAreas\":").append(a.soldOutAreas)
+                  .append(",\"cheapestPriceUSD\":").append(a.isSoldOut() ? "null" : Formats.plain(DataManager.getPricing().toUsdCents(a.cheapestPaise)));
+            }
+            sb.append('}');
+        }
+        return ok(sb.append(']').toString());
+    }
+
+    private static Response areas(Map<String, String> p) {
+        StringBuilder sb = new StringBuilder("[");
+        for (SeatingArea a : DataManager.getSeatingAreasForGP(required(p, "gp"))) {
+            if (sb.length() > 1) sb.append(',');
+            sb.append(areaJson(a));
+        }
+        return ok(sb.append(']').toString());
+    }
+
+    private static Response book(Map<String, String> p) {
+        User user = session(p);
+        if (user == null) return error(401, "Not logged in");
+        int count = count(p);
+        SeatingArea area = area(required(p, "area"));
+        if (area == null) return error(404, "Unknown area: " + p.get("area"));
+        BookingResult result = DataManager.bookTicket(user, area, count, area.getGrandPrix().getDate());
+        return result == BookingResult.QUEUED ? queued(area.getGpName(), user) : bookingResponse(result, user);
+    }
+
+    private static Response hold(Map<String, String> p) {
+        User user = session(p);
+        if (user == null) return error(401, "Not logged in");
+        int count = count(p);
+        SeatingArea area = area(required(p, "area"));
+        if (area == null) return error(404, "Unknown area: " + p.get("area"));
+        SeatHolds.Placement placement = DataManager.placeHold(user, area, count);
+        if (placement.status == SeatHolds.Status.QUEUED) return queued(area.getGpName(), user);
+        if (placement.status != SeatHolds.Status.OK) {
+            return new Response(placement.status == SeatHolds.Status.LIMIT_REACHED ? 429 : 409, "{\"result\":" + json(placement.status.name()) + "}");
+        }
+        SeatHold hold = placement.hold;
+        return ok("{\"hold\":" + hold.id + ",\"count\":" + hold.count + ",\"totalUsd\":" + Formats.plain(hold.totalCents)
+                + ",\"fxVersion\":" + hold.fxVersion + ",\"expiresAt\":" + hold.expiresAtMillis + "}");
+    }
+
+    private static Response confirm(Map<String, String> p) {
+        User user = session(p);
+        if (user == null) return error(401, "Not logged in");
+        SeatHold hold = ownHold(p, user);
+        if (hold == null) return error(410, "Hold expired or already used");
+        BookingResult result = DataManager.confirmHoldAsync(user, hold, hold.area.getGrandPrix().getDate()).join();
+        return result == BookingResult.QUEUED ? queued(hold.area.getGpName(), user) : bookingResponse(result, user);
+    }
+
+    private static Response release(Map<String, String> p) {
+        User user = session(p);
+        if (user == null) return error(401, "Not logged in");
+        SeatHold hold = ownHold(p, user);
+        return ok("{\"released\":" + (hold != null && DataManager.releaseHold(hold)) + "}");
+    }
+
+    // Explicit polling for clients that want to wait in line before opening the booking page.
+    private static Response queue(Map<String, String> p) {
+        User user = session(p);
+        if (user == null) return error(401, "Not logged in");
+        String gpName = required(p, "gp");
+        if (DataManager.getGrandPrix(gpName) == null) return error(404, "Unknown Grand Prix: " + gpName);
+        WaitingRoom.Pass pass = DataManager.admission(gpName, user);
+        return new Response(pass.isAdmitted() ? 200 : 429, passJson(pass));
+    }
+
+    // DataManager turned the request away at the waiting room; reports the user's place in line.
+    // Polling again is harmless, and a pass that came through in between still answers 429 so the
+    // client simply retries.
+    private static Response queued(String gpName, User user) {
+        WaitingRoom.Pass pass = DataManager.admission(gpName, user);
+        return new Response(pass.status == WaitingRoom.Status.REJECTED ? 503 : 429, passJson(pass));
+    }
+
+    private static String passJson(WaitingRoom.Pass pass) {
+        return "{\"queue\":" + json(pass.status.name()) + ",\"ticket\":" + pass.ticket + ",\"position\":" + pass.position
+                + ",\"estimatedWaitMs\":" + pass.estimatedWaitMs + "}";
+    }
+
+    private static SeatHold ownHold(Map<String, String> p, User user) {
+        SeatHold hold = DataManager.getHolds().get(Long.parseLong(required(p, "hold")));
+        return hold != null && hold.userEmail.equals(user.getEmail()) ? hold : null;
+    }
+
+    private static int count(Map<String, String> p) {
+        int count = Integer.parseInt(required(p, "count"));
+        if (count < 1 || count > 10) throw new IllegalArgumentException("count must be between 1 and 10");
+        return count;
+    }
+
+    // Null when the Grand Prix or the area does not exist.
+    private static SeatingArea area(String areaId) {
+        int sep = areaId.indexOf('|');
+        if (sep < 0) throw new IllegalArgumentException("Unknown area: " + areaId);
+        String gpName = areaId.substring(0, sep);
+        if (DataManager.getGrandPrix(gpName) == null) return null;
+        for (SeatingArea a : DataManager.getSeatingAreasForGP(gpName)) {
+            if (a.getUniqueId().equals(areaId)) return a;
+        }
+        return null;
+    }
+
+    private static Response bookingResponse(BookingResult result, User user) {
+        int status = result == BookingResult.OK ? 200 : result == BookingResult.ERROR ? 500 : 409;
+        return new Response(status, "{\"result\":" + json(result.name()) + ",\"user\":" + userJson(user) + "}");
+    }
+
+    private static Response tickets(Map<String, String> p) {
+        User user = session(p);
+        if (user == null) return error(401, "Not logged in");
+        StringBuilder sb = new StringBuilder("[");
+        for (Ticket t : DataManager.getTicketsForUser(user.getEmail())) {
+            if (sb.length() > 1) sb.append(',');
+            sb.append("{\"id\":").append(json(t.getTicketId()))
+              .append(",\"gp\":").append(json(t.getGrandPrixName()))
+              .append(",\"area\":").append(json(t.getSeatingAreaName()))
+              .append(",\"count\":").append(t.getTicketCount())
+              .append(",\"totalUsd\":").append(Formats.plain(t.getTotalCents()))
+              .append(",\"fxVersion\":").append(t.getFxVersion())
+              .append(",\"raceDate\":").append(json(t.getRaceDate()))
+              .append(",\"bookedAt\":").append(t.getBookingDate().getTime()).append('}');
+        }
+        return ok(sb.append(']').toString());
+    }
+
+    private static Response diagnostics(Map<String, String> p) {
+        if (session(p) == null) return error(401, "Not logged in");
+        return ok("{\"diagnostics\":" + json(DataManager.diagnostics()) + "}");
+    }
+
+    private static User session(Map<String, String> p) {
+        String token = p.get(TOKEN);
+        return token == null ? null : DataManager.getCredentials().session(token);
+    }
+
+    private static String required(Map<String, String> p, String key) {
+        String v = p.get(key);
+        if (v == null || v.isEmpty()) throw new IllegalArgumentException("Missing parameter: " + key);
+        return v;
+    }
+
+    // Key under which params() passes on the bearer token; a parameter of that name is dropped.
+    private static final String TOKEN = "token";
+
+    // Query-string parameters for GET, url-encoded form parameters for POST, plus the bearer token
+    // from the Authorization header.
+    private static Map<String, String> params(HttpExchange ex) throws IOException {
+        Map<String, String> p = new HashMap<>();
+        if (POST.equalsIgnoreCase(ex.getRequestMethod())) {
+            try (InputStream in = ex.getRequestBody()) {
+                parseInto(p, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        } else {
+            parseInto(p, ex.getRequestURI().getRawQuery());
+        }
+        p.remove(TOKEN);
+        String auth = ex.getRequestHeaders().getFirst("Authorization");
+        if (auth != null && auth.startsWith("Bearer ")) p.put(TOKEN, auth.substring(7).trim());
+        return p;
+    }
+
+    private static void parseInto(Map<String, String> p, String raw) {
+        if (raw == null || raw.isEmpty()) return;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String k = eq < 0 ? pair : pair.substring(0, eq);
+            String v = eq < 0 ? "" : pair.substring(eq + 1);
+            p.put(URLDecoder.decode(k, StandardCharsets.UTF_8), URLDecoder.decode(v, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String userJson(User u) {
+        return "{\"name\":" + json(u.getName()) + ",\"email\":" + json(u.getEmail()) + ",\"walletUsd\":" + Formats.plain(u.getWalletCents()) + "}";
+    }
+
+    private static String areaJson(SeatingArea a) {
+        return "{\"id\":" + json(a.getUniqueId()) + ",\"name\":" + json(a.getName())
+                + ",\"priceInr\":" + Formats.plain(a.getPricePaise()) + ",\"priceUsd\":" + Formats.plain(DataManager.quote(a).totalCents(1)) + ",\"left\":" + a.getTicketsLeft() + "}";
+    }
+
+    private static Response ok(String body) { return new Response(200, body); }
+    private static Response error(int status, String message) { return new Response(status, "{\"error\":" + json(message) + "}"); }
+
+    static String json(String v) {
+        if (v == null) return "null";
+        StringBuilder sb = new StringBuilder(v.length() + 2).append('"');
+        for (int i = 0; i < v.length(); i++) {
+            char c = v.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
+
+// =================================================================================
+// 7. On-Sale Load Generator
+// =================================================================================
+// Reproduces a ticket-release stampede against DataManager: registers and logs in a crowd of
+// users, then has them all book the same few hot areas at once and checks the final inventory
+// against the tickets table. Run with: java f1.F1BookingSystem --loadtest users=5000 concurrency=64
+// thinkMs=0 bookingsPerUser=1 tickets=2 areas="Las Vegas Grand Prix|Heineken Silver (Main)"
+// It never touches the application database: without -Df1.db.url it seeds a fresh scratch file
+// in java.io.tmpdir, and it refuses to run when f1.db.url points at f1_booking.db.
+class LoadGenerator {
+    private static final Logger LOG = LoggerFactory.getLogger(LoadGenerator.class);
+    int users = 2000;
+    int concurrency = 64;
+    long thinkMs = 0;
+    int bookingsPerUser = 1;
+    int ticketsPerBooking = 2;
+    boolean waitingRoom = false;
+    List<String> areaIds = new ArrayList<>(Arrays.asList(
+            "Las Vegas Grand Prix|Heineken Silver (Main)", "British Grand Prix|General Admission", "Dutch Grand Prix|Paddock Club"));
+
+    public static void main(String[] args) {
+        LoadGenerator gen = new LoadGenerator();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            String key = arg.substring(0, eq), value = arg.substring(eq + 1);
+            switch (key) {
+                case "users": gen.users = Integer.parseInt(value); break;
+                case "concurrency": gen.concurrency = Integer.parseInt(value); break;
+                case "thinkMs": gen.thinkMs = Long.parseLong(value); break;
+                case "bookingsPerUser": gen.bookingsPerUser = Integer.parseInt(value); break;
+                case "tickets": gen.ticketsPerBooking = Integer.parseInt(value); break;
+                case "areas": gen.areaIds = new ArrayList<>(Arrays.asList(value.split(","))); break;
+                case "waitingRoom": gen.waitingRoom = Boolean.parseBoolean(value); break;
+                default: throw new IllegalArgumentException("Unknown option: " + key);
+            }
+        }
+        try {
+            useScratchDatabase();
+        } catch (IOException | IllegalStateException e) {
+            System.err.println("Load test not started: " + e.getMessage());
+            System.exit(2);
+        }
+        DataManager.initializeDatabase();
+        System.out.println(gen.run());
+    }
+
+    private static void useScratchDatabase() throws IOException {
+        String url = System.getProperty("f1.db.url");
+        if (url == null) {
+            File scratch = File.createTempFile("f1-loadtest-", ".db");
+            for (String suffix : new String[] {"", "-wal", "-shm"}) {
+                new File(scratch.getPath() + suffix).deleteOnExit();
+            }
+            System.setProperty("f1.db.url", "jdbc:sqlite:" + scratch.getAbsolutePath());
+            System.out.println("Load testing against scratch database " + scratch);
+            return;
+        }
+        String prefix = "jdbc:sqlite:";
+        File appDb = new File(DataManager.DEFAULT_DB_URL.substring(prefix.length())).getCanonicalFile();
+        if (url.startsWith(prefix) && new File(url.substring(prefix.length())).getCanonicalFile().equals(appDb)) {
+            throw new IllegalStateException("f1.db.url points at the application database " + appDb + "; use a scratch file");
+        }
+    }
+
+    public String run() {
+        List<SeatingArea> targets = resolveTargets();
+        if (targets.isEmpty()) return "No target seating areas found for " + areaIds;
+        Map<String, Integer> bookedBefore = bookedTickets(targets);
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+        String[] emails = new String[users];
+        for (int i = 0; i < users; i++) emails[i] = "loadtest-" + runId + "-" + i + "@f1.test";
+
+        Phase register = runPhase("register", users, i -> DataManager.registerUser("Load User " + i, emails[i], "pw") ? BookingResult.OK : BookingResult.ERROR);
+        User[] loggedIn = new User[users];
+        Phase login = runPhase("login", users, i -> {
+            loggedIn[i] = DataManager.authenticateUser(emails[i], "pw");
+            return loggedIn[i] != null ? BookingResult.OK : BookingResult.ERROR;
+        });
+        Phase book = runPhase("book", users * bookingsPerUser, i -> {
+            User u = loggedIn[i % users];
+            if (u == null) return BookingResult.ERROR;
+            SeatingArea area = targets.get(ThreadLocalRandom.current().nextInt(targets.size()));
+            if (waitingRoom) awaitAdmission(area.getGpName(), u);
+            BookingResult r;
+            while ((r = DataManager.bookTicket(u, area, ticketsPerBooking, "LOADTEST")) == BookingResult.QUEUED) {
+                awaitAdmission(area.getGpName(), u);
+            }
+            return r;
+        });
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("On-sale load test: users=%d concurrency=%d thinkMs=%d bookingsPerUser=%d tickets=%d waitingRoom=%b%n",
+                users, concurrency, thinkMs, bookingsPerUser, ticketsPerBooking, waitingRoom));
+        sb.append(register).append(login).append(book);
+        sb.append(consistencyReport(targets, bookedBefore, book.ok * ticketsPerBooking));
+        sb.append(DataManager.diagnostics()).append(System.lineSeparator());
+        return sb.toString();
+    }
+
+    // Polls the waiting room the way a well-behaved client would, sleeping for the estimated wait
+    // (capped, so a shrinking line is noticed) between polls and backing off when turned away.
+    // DataManager enforces admission either way; waitingRoom=true only queues before the first
+    // booking attempt instead of after a QUEUED answer.
+    private static void awaitAdmission(String gpName, User user) throws InterruptedException {
+        while (true) {
+            WaitingRoom.Pass pass = DataManager.admission(gpName, user);
+            if (pass.isAdmitted()) return;
+            Thread.sleep(Math.max(1, Math.min(pass.estimatedWaitMs, pass.status == WaitingRoom.Status.REJECTED ? 1000 : 100)));
+        }
+    }
+
+    interface Op { BookingResult call(int i) throws Exception; }
+
+    static final class Phase {
+        final String name;
+        final long[] latencies;
+        final long wallNanos;
+        final long ok, soldOut, insufficient, errors;
+        Phase(String name, long[] latencies, long wallNanos, long ok, long soldOut, long insufficient, long errors) {
+            this.name = name; this.latencies = latencies; this.wallNanos = wallNanos;
+            this.ok = ok; this.soldOut = soldOut; this.insufficient = insufficient; this.errors = errors;
+        }
+        double percentileMs(double p) {
+            if (latencies.length == 0) return 0;
+            int idx = (int) Math.min(latencies.length - 1, Math.ceil(p * latencies.length) - 1);
+            return latencies[Math.max(0, idx)] / 1e6;
+        }
+        @Override public String toString() {
+            double seconds = wallNanos / 1e9;
+            return String.format("  %-8s n=%d %.1f ops/s p50=%.3fms p99=%.3fms p999=%.3fms max=%.3fms ok=%d soldOut=%d insufficientFunds=%d errors=%d%n",
+                    name, latencies.length, latencies.length / Math.max(seconds, 1e-9), percentileMs(0.50), percentileMs(0.99),
+                    percentileMs(0.999), percentileMs(1.0), ok, soldOut, insufficient, errors);
+        }
+    }
+
+    private Phase runPhase(String name, int n, Op op) {
+        long[] latencies = new long[n];
+        LongAdder ok = new LongAdder(), soldOut = new LongAdder(), insufficient = new LongAdder(), errors = new LongAdder();
+        AtomicInteger next = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(concurrency);
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency);
+        long start = System.nanoTime();
+        for (int w = 0; w < concurrency; w++) {
+            pool.execute(() -> {
+                try {
+                    int i;
+                    while ((i = next.getAndIncrement()) < n) {
+                        if (thinkMs > 0) Thread.sleep(ThreadLocalRandom.current().nextLong(thinkMs + 1));
+                        long t0 = System.nanoTime();
+                        BookingResult r;
+                        try {
+                            r = op.call(i);
+                        } catch (Exception e) {
+                            r = BookingResult.ERROR;
+                        }
+                        latencies[i] = System.nanoTime() - t0;
+                        switch (r) {
+                            case OK: ok.increment(); break;
+                            case SOLD_OUT: soldOut.increment(); break;
+                            case INSUFFICIENT_FUNDS: insufficient.increment(); break;
+                            default: errors.increment();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long wall = System.nanoTime() - start;
+        pool.shutdown();
+        Arrays.sort(latencies);
+        return new Phase(name, latencies, wall, ok.sum(), soldOut.sum(), insufficient.sum(), errors.sum());
+    }
+
+    private List<SeatingArea> resolveTargets() {
+        List<SeatingArea> targets = new ArrayList<>();
+        for (String id : areaIds) {
+            int sep = id.indexOf('|');
+            if (sep < 0) continue;
+            for (SeatingArea a : DataManager.getSeatingAreasForGP(id.substring(0, sep))) {
+                if (a.getUniqueId().equals(id)) targets.add(a);
+            }
+        }
+        return targets;
+    }
+
+    private static Map<String, Integer> bookedTickets(List<SeatingArea> targets) {
+        Map<String, Integer> booked = new HashMap<>();
+        String sql = "SELECT COALESCE(SUM(ticket_count), 0) FROM tickets WHERE gp_name = ? AND seating_area = ?";
+        try (PooledConnection pc = DataManager.getPool().borrow()) {
+            PreparedStatement pstmt = pc.prepare(sql);
+            for (SeatingArea a : targets) {
+                pstmt.setString(1, a.getGpName());
+                pstmt.setString(2, a.getName());
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    booked.put(a.getUniqueId(), rs.next() ? rs.getInt(1) : 0);
+                }
+            }
+        } catch (SQLException e) {
+            LOG.warn("Could not count booked tickets", e);
+        }
+        return booked;
+    }
+
+    private static String consistencyReport(List<SeatingArea> targets, Map<String, Integer> before, long reportedSeats) {
+        Map<String, Integer> after = bookedTickets(targets);
+        StringBuilder sb = new StringBuilder("  inventory:").append(System.lineSeparator());
+        long insertedSeats = 0, oversold = 0, mismatched = 0;
+        String sql = "SELECT capacity, sold_tickets FROM seating_areas WHERE unique_id = ?";
+        try (PooledConnection pc = DataManager.getPool().borrow()) {
+            PreparedStatement pstmt = pc.prepare(sql);
+            for (SeatingArea a : targets) {
+                pstmt.setString(1, a.getUniqueId());
+                int capacity, sold;
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (!rs.next()) continue;
+                    capacity = rs.getInt(1);
+                    sold = rs.getInt(2);
+                }
+                int booked = after.getOrDefault(a.getUniqueId(), 0);
+                insertedSeats += booked - before.getOrDefault(a.getUniqueId(), 0);
+                int over = Math.max(0, booked - capacity);
+                oversold += over;
+                if (sold != booked) mismatched++;
+                sb.append(String.format("    %-50s capacity=%d sold_tickets=%d tickets=%d oversold=%d %s%n",
+                        a.getUniqueId(), capacity, sold, booked, over, sold == booked ? "OK" : "MISMATCH"));
+            }
+        } catch (SQLException e) {
+            LOG.warn("Could not check the inventory", e);
+        }
+        sb.append(String.format("  seats reported booked=%d, seats inserted=%d, oversold=%d, inconsistent areas=%d%n",
+                reportedSeats, insertedSeats, oversold, mismatched));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,174 @@
+package f1;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+// Runs against the shared scratch database; see TestDatabase.
+class BookingWriterTest {
+    private static final String GP = "British Grand Prix";
+    private static final String AREA = "General Admission";
+    private static ExecutorService callers;
+
+    @BeforeAll
+    static void freshDatabase() {
+        TestDatabase.init();
+        callers = Executors.newFixedThreadPool(16);
+    }
+
+    @AfterAll
+    static void stopCallers() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void concurrentBookingsAreGroupCommittedWithTheirOwnResults() throws Exception {
+        User user = newUser();
+        SeatingArea area = area();
+        int bookings = 200;
+        long batchesBefore = DataManager.getBookingWriter().getBatches();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<BookingResult>> results = new ArrayList<>();
+        for (int i = 0; i < bookings; i++) {
+            results.add(callers.submit(() -> {
+                start.await();
+                return DataManager.bookTicket(user, area, 1, "Jul 04-06");
+            }));
+        }
+        start.countDown();
+        for (Future<BookingResult> r : results) assertEquals(BookingResult.OK, r.get(30, TimeUnit.SECONDS));
+
+        long batches = DataManager.getBookingWriter().getBatches() - batchesBefore;
+        assertTrue(batches < bookings, "expected bookings to share transactions, got " + batches + " batches");
+        List<Ticket> tickets = DataManager.getTicketsForUser(user.getEmail());
+        assertEquals(bookings, tickets.size());
+        Set<String> ids = new HashSet<>();
+        for (Ticket t : tickets) ids.add(t.getTicketId());
+        assertEquals(bookings, ids.size(), "ticket ids must be unique");
+        long price = DataManager.quote(area).totalCents(1);
+        assertEquals(100_000_000L - bookings * price, user.getWalletCents());
+    }
+
+    @Test
+    void aFailingRequestFallsBackWithoutFailingItsBatch() throws Exception {
+        User rich = newUser();
+        User poor = new User("Nobody", "missing-" + UUID.randomUUID() + "@f1.test", 0);
+        SeatingArea area = area();
+        long price = DataManager.quote(area).totalCents(1);
+        // A long linger so every request below lands in one batch.
+        BookingWriter writer = new BookingWriter(64, TimeUnit.SECONDS.toMicros(1), 5000);
+        List<BookingRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 10; i++) requests.add(new BookingRequest(rich, area, 1, price, area.getPrices().fxVersion, "Jul 04-06"));
+        BookingRequest broken = new BookingRequest(rich, area, 1, price, area.getPrices().fxVersion, null); // race_date is NOT NULL
+        BookingRequest unfunded = new BookingRequest(poor, area, 1, price, area.getPrices().fxVersion, "Jul 04-06");
+        requests.add(5, broken);
+        requests.add(unfunded);
+        int soldBefore = DataManager.getInventory().sold(area.getUniqueId());
+        List<CompletableFuture<BookingResult>> futures = new ArrayList<>();
+        for (BookingRequest r : requests) {
+            assertTrue(DataManager.getInventory().tryReserve(area.getUniqueId(), 1));
+            futures.add(writer.submit(r));
+        }
+        for (int i = 0; i < requests.size(); i++) {
+            BookingResult expected = requests.get(i) == broken ? BookingResult.ERROR
+                    : requests.get(i) == unfunded ? BookingResult.INSUFFICIENT_FUNDS : BookingResult.OK;
+            assertEquals(expected, futures.get(i).get(30, TimeUnit.SECONDS), "request " + i);
+        }
+        assertEquals(1, writer.getBatches());
+        assertEquals(1, writer.getFallbacks());
+        assertEquals(10, DataManager.getTicketsForUser(rich.getEmail()).size());
+        // Seats of the failed requests went back to the inventory.
+        assertEquals(soldBefore + 10, DataManager.getInventory().sold(area.getUniqueId()));
+        writer.close(5000);
+    }
+
+    @Test
+    void seatsSoldByAnotherProcessFailTheBookingAsSoldOut() throws Exception {
+        User user = newUser();
+        SeatingArea area = TestDatabase.area("Dutch Grand Prix", "Champions Club");
+        // Another process sold the stand out; this process's counter has not seen it.
+        TestDatabase.execute("UPDATE seating_areas SET sold_tickets = capacity WHERE unique_id = '" + area.getUniqueId() + "'");
+        try {
+            assertEquals(BookingResult.SOLD_OUT, DataManager.bookTicket(user, area, 2, "Aug 29-31"));
+            assertEquals(0, DataManager.getTicketsForUser(user.getEmail()).size());
+            assertEquals(100_000_000L, user.getWalletCents());
+            // The counter adopted the other process's sales, so the next attempt stops in memory.
+            assertEquals(area.getCapacity(), DataManager.getInventory().sold(area.getUniqueId()));
+        } finally {
+            DataManager.getInventory().rebuild(); // recounts the row from the tickets table
+        }
+    }
+
+    @Test
+    void closeCommitsEverythingAlreadyQueued() throws Exception {
+        User user = newUser();
+        SeatingArea area = area();
+        long price = DataManager.quote(area).totalCents(1);
+        BookingWriter writer = new BookingWriter(4, TimeUnit.MILLISECONDS.toMicros(50), 5000);
+        List<CompletableFuture<BookingResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            assertTrue(DataManager.getInventory().tryReserve(area.getUniqueId(), 1));
+            futures.add(writer.submit(new BookingRequest(user, area, 1, price, area.getPrices().fxVersion, "Jul 04-06")));
+        }
+        writer.close(5000);
+        for (CompletableFuture<BookingResult> f : futures) {
+            assertTrue(f.isDone());
+            assertEquals(BookingResult.OK, f.get());
+        }
+        assertEquals(20, DataManager.getTicketsForUser(user.getEmail()).size());
+
+        assertTrue(DataManager.getInventory().tryReserve(area.getUniqueId(), 1));
+        assertEquals(BookingResult.ERROR, writer.submit(new BookingRequest(user, area, 1, price, area.getPrices().fxVersion, "Jul 04-06")).get());
+    }
+
+    @Test
+    void closeFailsWhatTheWriterDidNotReachInTime() throws Exception {
+        User user = newUser();
+        SeatingArea area = area();
+        long price = DataManager.quote(area).totalCents(1);
+        BookingWriter writer = new BookingWriter(1, 0, 5000);
+        List<CompletableFuture<BookingResult>> futures = new ArrayList<>();
+        // Holding the inventory's commit lock stalls the writer inside its first batch.
+        Lock commitLock = DataManager.getInventory().commitLock();
+        commitLock.lock();
+        try {
+            for (int i = 0; i < 5; i++) {
+                assertTrue(DataManager.getInventory().tryReserve(area.getUniqueId(), 1));
+                futures.add(writer.submit(new BookingRequest(user, area, 1, price, area.getPrices().fxVersion, "Jul 04-06")));
+            }
+            writer.close(200);
+            for (int i = 1; i < 5; i++) assertEquals(BookingResult.ERROR, futures.get(i).getNow(null), "request " + i);
+            assertEquals(4, writer.getAbandoned());
+        } finally {
+            commitLock.unlock();
+        }
+        // The batch the writer was already in still commits.
+        assertEquals(BookingResult.OK, futures.get(0).get(10, TimeUnit.SECONDS));
+        assertEquals(1, DataManager.getTicketsForUser(user.getEmail()).size());
+    }
+
+    private static User newUser() {
+        String email = "writer-" + UUID.randomUUID() + "@f1.test";
+        assertTrue(DataManager.registerUser("Writer Test", email, "pw"));
+        return new User("Writer Test", email, 100_000_000L);
+    }
+
+    private static SeatingArea area() {
+        return TestDatabase.area(GP, AREA);
+    }
+}
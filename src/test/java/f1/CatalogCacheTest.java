@@ -0,0 +1,30 @@
+package f1;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+
+class CatalogCacheTest {
+    @Test
+    void aLoadThatRacedAnInvalidationIsNotCached() {
+        CatalogCache cache = new CatalogCache(4);
+        long loadedUnder = cache.generation();
+        cache.invalidateAll();
+        cache.put("Dutch Grand Prix", loadedUnder, Collections.emptyList());
+        assertNull(cache.get("Dutch Grand Prix"));
+
+        cache.put("Dutch Grand Prix", cache.generation(), Collections.emptyList());
+        assertNotNull(cache.get("Dutch Grand Prix"));
+    }
+
+    @Test
+    void invalidatingOneGrandPrixAlsoRejectsLoadsInFlight() {
+        CatalogCache cache = new CatalogCache(4);
+        long loadedUnder = cache.generation();
+        cache.invalidate("Italian Grand Prix");
+        cache.put("Italian Grand Prix", loadedUnder, Collections.emptyList());
+        assertNull(cache.get("Italian Grand Prix"));
+    }
+}
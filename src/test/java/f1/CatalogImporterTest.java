@@ -0,0 +1,85 @@
+package f1;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import org.junit.jupiter.api.Test;
+
+class CatalogImporterTest {
+    @Test
+    void csvSkipsTheHeaderAndBlankLinesAndUnquotesFields() throws IOException {
+        CatalogImporter.RowSource rows = csv("gp_name,area_name,price_inr,capacity\n"
+                + "\n"
+                + "Dutch Grand Prix, Pit Grandstand ,450000,3000\n"
+                + "\"British Grand Prix\",\"Stowe A/B/C, \"\"the\"\" corner\",290000.50,5000\n");
+        assertArrayEquals(new String[] {"Dutch Grand Prix", "Pit Grandstand", "450000", "3000"}, rows.next());
+        assertArrayEquals(new String[] {"British Grand Prix", "Stowe A/B/C, \"the\" corner", "290000.50", "5000"}, rows.next());
+        assertNull(rows.next());
+    }
+
+    @Test
+    void csvWithoutAHeaderKeepsTheFirstRow() throws IOException {
+        CatalogImporter.RowSource rows = csv("Qatar Grand Prix,T2 Grandstand,190000,2000\n");
+        assertArrayEquals(new String[] {"Qatar Grand Prix", "T2 Grandstand", "190000", "2000"}, rows.next());
+        assertNull(rows.next());
+    }
+
+    @Test
+    void csvRejectsShortRowsAndUnterminatedQuotes() {
+        assertThrows(IOException.class, () -> csv("Qatar Grand Prix,T2 Grandstand,190000\n").next());
+        assertThrows(IOException.class, () -> csv("Qatar Grand Prix,\"T2 Grandstand,190000,2000\n").next());
+    }
+
+    @Test
+    void jsonReadsBothKeyStylesEscapesAndIgnoresUnknownFields() throws IOException {
+        CatalogImporter.RowSource rows = json("[\n"
+                + " {\"gpName\": \"Dutch Grand Prix\", \"areaName\": \"Pit \\\"Main\\\" Grandstand\", \"priceInr\": 450000, \"capacity\": 3000},\n"
+                + " {\"gp_name\": \"Italian Grand Prix\", \"area_name\": \"Alta Velocit\\u00e0\", \"price_inr\": \"250000.25\", \"capacity\": 2000, \"note\": null}\n"
+                + "]");
+        assertArrayEquals(new String[] {"Dutch Grand Prix", "Pit \"Main\" Grandstand", "450000", "3000"}, rows.next());
+        assertArrayEquals(new String[] {"Italian Grand Prix", "Alta Velocità", "250000.25", "2000"}, rows.next());
+        assertNull(rows.next());
+    }
+
+    @Test
+    void jsonMissingFieldsComeBackAsNull() throws IOException {
+        CatalogImporter.RowSource rows = json("[{\"gpName\": \"Qatar Grand Prix\", \"capacity\": null}]");
+        assertArrayEquals(new String[] {"Qatar Grand Prix", null, null, null}, rows.next());
+    }
+
+    @Test
+    void malformedJsonIsAnIOException() {
+        assertThrows(IOException.class, () -> readAll(json("{\"gpName\": \"x\"}")));
+        assertThrows(IOException.class, () -> readAll(json("[[1, 2]]")));
+        assertThrows(IOException.class, () -> readAll(json("[{\"gpName\": \"unterminated")));
+        assertThrows(IOException.class, () -> readAll(json("[{\"gpName\": \"bad \\u00zz escape\"}]")));
+        assertThrows(IOException.class, () -> readAll(json("[{\"gpName\": \"x\"},")));
+        assertThrows(IOException.class, () -> readAll(json("[{\"gpName\": \"x\"}")));
+    }
+
+    @Test
+    void pricesAreReadAsExactPaise() {
+        assertEquals(29_000_010L, CatalogImporter.paise("290000.10"));
+        assertEquals(25_000_025L, CatalogImporter.paise(" 250000.25 "));
+        assertEquals(35_000_000L, CatalogImporter.paise("350000"));
+        assertThrows(ArithmeticException.class, () -> CatalogImporter.paise("19.999"));
+        assertThrows(NumberFormatException.class, () -> CatalogImporter.paise("free"));
+    }
+
+    private static void readAll(CatalogImporter.RowSource rows) throws IOException {
+        while (rows.next() != null) { }
+    }
+
+    private static CatalogImporter.RowSource csv(String text) {
+        return new CatalogImporter.CsvRows(new BufferedReader(new StringReader(text)));
+    }
+
+    private static CatalogImporter.RowSource json(String text) {
+        return new CatalogImporter.JsonRows(new StringReader(text));
+    }
+}
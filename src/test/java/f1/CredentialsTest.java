@@ -0,0 +1,36 @@
+package f1;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.PreparedStatement;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class CredentialsTest {
+    @Test
+    void onlyWellFormedHashesVerify() {
+        PasswordHasher hasher = new PasswordHasher(1000);
+        assertTrue(hasher.verify("pw", hasher.hash("pw")));
+        assertFalse(hasher.verify("pw", "pw"), "plaintext must not verify");
+        assertFalse(hasher.verify("pw", PasswordHasher.PREFIX + "lots$AAAA$AAAA"));
+        assertFalse(hasher.verify("pw", PasswordHasher.PREFIX + "1000$not base64$AAAA"));
+        assertFalse(hasher.verify("pw", PasswordHasher.PREFIX + "0$$"));
+    }
+
+    @Test
+    void aCorruptStoredHashIsABadPasswordNotBusy() throws Exception {
+        TestDatabase.init();
+        try (PooledConnection pc = DataManager.getPool().borrow()) {
+            PreparedStatement pstmt = pc.prepare("INSERT OR REPLACE INTO users(name, email, password_hash, wallet_cents) VALUES(?,?,?,?)");
+            pstmt.setString(1, "Corrupt");
+            pstmt.setString(2, "corrupt@example.com");
+            pstmt.setString(3, PasswordHasher.PREFIX + "x$y$z");
+            pstmt.setLong(4, 0);
+            pstmt.executeUpdate();
+        }
+        Credentials.Outcome outcome = DataManager.getCredentials().login("corrupt@example.com", "pw").get(10, TimeUnit.SECONDS);
+        assertEquals(Credentials.Status.BAD_CREDENTIALS, outcome.status);
+    }
+}
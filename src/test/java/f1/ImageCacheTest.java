@@ -0,0 +1,32 @@
+package f1;
+
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class ImageCacheTest {
+    @Test
+    void concurrentRequestsShareOneLoadAndTheResultIsCached() throws Exception {
+        CompletableFuture<BufferedImage> first = ImageCache.getAsync(ImageCache.COVER_PATH, 97);
+        CompletableFuture<BufferedImage> second = ImageCache.getAsync(ImageCache.COVER_PATH, 97);
+        BufferedImage img = first.get(10, TimeUnit.SECONDS);
+        assertSame(img, second.get(10, TimeUnit.SECONDS));
+        assertSame(img, ImageCache.peek(ImageCache.COVER_PATH, 97));
+        assertSame(img, ImageCache.getAsync(ImageCache.COVER_PATH, 97).getNow(null));
+    }
+
+    @Test
+    void aFailedLoadIsRetriedOnTheNextRequest() throws Exception {
+        CompletableFuture<BufferedImage> failed = ImageCache.getAsync("assets/missing.jpg", 50);
+        assertThrows(ExecutionException.class, () -> failed.get(10, TimeUnit.SECONDS));
+        CompletableFuture<BufferedImage> retry = ImageCache.getAsync("assets/missing.jpg", 50);
+        assertNotSame(failed, retry, "a finished load was still shared");
+        assertThrows(ExecutionException.class, () -> retry.get(10, TimeUnit.SECONDS));
+    }
+}
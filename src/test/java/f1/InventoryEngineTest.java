@@ -0,0 +1,47 @@
+package f1;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+// Runs against the shared scratch database; see TestDatabase.
+class InventoryEngineTest {
+    @BeforeAll
+    static void freshDatabase() {
+        TestDatabase.init();
+    }
+
+    @Test
+    void rebuildKeepsSeatsThatAreHeldOrQueued() {
+        InventoryEngine inventory = DataManager.getInventory();
+        SeatingArea area = TestDatabase.area("Qatar Grand Prix", "T2 Grandstand");
+        int before = inventory.sold(area.getUniqueId());
+        assertTrue(inventory.tryReserve(area.getUniqueId(), 5));
+        inventory.rebuild();
+        assertEquals(before + 5, inventory.sold(area.getUniqueId()));
+        inventory.release(area.getUniqueId(), 5);
+        assertEquals(before, inventory.sold(area.getUniqueId()));
+    }
+
+    @Test
+    void rebuildAppliesCapacityChangesToTheLiveCounter() throws Exception {
+        InventoryEngine inventory = DataManager.getInventory();
+        SeatingArea area = TestDatabase.area("Qatar Grand Prix", "T3 Grandstand");
+        String id = area.getUniqueId();
+        assertTrue(inventory.tryReserve(id, 2));
+        TestDatabase.execute("UPDATE seating_areas SET capacity = 3 WHERE unique_id = '" + id + "'");
+        try {
+            inventory.rebuild();
+            assertEquals(1, inventory.ticketsLeft(id));
+            assertFalse(inventory.tryReserve(id, 2));
+        } finally {
+            inventory.release(id, 2);
+            TestDatabase.execute("UPDATE seating_areas SET capacity = " + area.getCapacity() + " WHERE unique_id = '" + id + "'");
+            inventory.rebuild();
+        }
+        assertEquals(area.getCapacity(), inventory.ticketsLeft(id));
+    }
+}
@@ -0,0 +1,114 @@
+package f1;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class InventoryEventBusTest {
+    // Runs scheduled deliveries only when the test says so, so a burst is fully queued first.
+    private static final class ManualExecutor implements Executor {
+        final Queue<Runnable> tasks = new ArrayDeque<>();
+        @Override public void execute(Runnable task) { tasks.add(task); }
+        void runAll() { Runnable r; while ((r = tasks.poll()) != null) r.run(); }
+    }
+
+    private static final class Recorder implements InventoryEventBus.Listener {
+        final List<Map<String, Integer>> inventory = new ArrayList<>();
+        final List<Long> wallets = new ArrayList<>();
+        final List<String> order = new ArrayList<>();
+        @Override public void onInventoryChanged(Map<String, Integer> soldByArea) { inventory.add(new HashMap<>(soldByArea)); order.add("inventory"); }
+        @Override public void onWalletChanged(String email, long balanceCents) { wallets.add(balanceCents); order.add("wallet"); }
+    }
+
+    @Test
+    void aBurstIsDeliveredOnceWithTheLastValuePerArea() {
+        InventoryEventBus bus = new InventoryEventBus();
+        ManualExecutor executor = new ManualExecutor();
+        Recorder recorder = new Recorder();
+        bus.subscribe("Dutch Grand Prix", "a@x.com", executor, recorder);
+
+        for (int sold = 1; sold <= 100; sold++) bus.publishArea("Dutch Grand Prix", "Dutch Grand Prix|Pit Grandstand", sold);
+        for (int sold = 1; sold <= 50; sold++) bus.publishArea("Dutch Grand Prix", "Dutch Grand Prix|Paddock Club", sold);
+        bus.publishArea("Italian Grand Prix", "Italian Grand Prix|Piscina (5)", 7); // another Grand Prix
+        for (long balance = 10; balance <= 30; balance += 10) bus.publishWallet("a@x.com", balance);
+        bus.publishWallet("b@x.com", 99); // another user
+        assertEquals(1, executor.tasks.size(), "a burst schedules a single delivery");
+        executor.runAll();
+
+        Map<String, Integer> expected = new HashMap<>();
+        expected.put("Dutch Grand Prix|Pit Grandstand", 100);
+        expected.put("Dutch Grand Prix|Paddock Club", 50);
+        assertEquals(Collections.singletonList(expected), recorder.inventory);
+        assertEquals(Collections.singletonList(30L), recorder.wallets);
+        assertEquals(List.of("inventory", "wallet"), recorder.order);
+
+        // The next change after a delivery starts a new one.
+        bus.publishArea("Dutch Grand Prix", "Dutch Grand Prix|Pit Grandstand", 101);
+        executor.runAll();
+        assertEquals(Collections.singletonMap("Dutch Grand Prix|Pit Grandstand", 101), recorder.inventory.get(1));
+    }
+
+    @Test
+    void aCancelledSubscriptionReceivesNothingAlreadyQueued() {
+        InventoryEventBus bus = new InventoryEventBus();
+        ManualExecutor executor = new ManualExecutor();
+        Recorder recorder = new Recorder();
+        InventoryEventBus.Subscription subscription = bus.subscribe(null, null, executor, recorder);
+        bus.publishArea("Dutch Grand Prix", "Dutch Grand Prix|Pit Grandstand", 1);
+        subscription.cancel();
+        executor.runAll();
+        assertTrue(recorder.order.isEmpty());
+    }
+
+    @Test
+    void concurrentPublishersEndOnTheirLastValueAndNeverGoBackwards() throws Exception {
+        InventoryEventBus bus = new InventoryEventBus();
+        ExecutorService delivery = Executors.newSingleThreadExecutor();
+        Map<String, List<Integer>> seen = new ConcurrentHashMap<>();
+        bus.subscribe(null, null, delivery, new InventoryEventBus.Listener() {
+            @Override public void onInventoryChanged(Map<String, Integer> soldByArea) {
+                soldByArea.forEach((area, sold) -> seen.computeIfAbsent(area, k -> new ArrayList<>()).add(sold));
+            }
+        });
+        int areas = 4, updates = 20_000;
+        ExecutorService publishers = Executors.newFixedThreadPool(areas);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int a = 0; a < areas; a++) {
+            String areaId = "GP|Area " + a;
+            publishers.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int sold = 1; sold <= updates; sold++) bus.publishArea("GP", areaId, sold);
+            });
+        }
+        start.countDown();
+        publishers.shutdown();
+        assertTrue(publishers.awaitTermination(30, TimeUnit.SECONDS));
+        delivery.shutdown(); // lets already scheduled deliveries finish
+        assertTrue(delivery.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(areas, seen.size());
+        for (Map.Entry<String, List<Integer>> e : seen.entrySet()) {
+            List<Integer> values = e.getValue();
+            for (int i = 1; i < values.size(); i++) assertTrue(values.get(i) > values.get(i - 1), e.getKey() + " went backwards");
+            assertEquals(updates, values.get(values.size() - 1), e.getKey() + " did not end on its last value");
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package f1;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Upgrades a database in the shape the application shipped with before schema_version existed:
+// money as REAL, plaintext passwords.
+class SchemaMigrationsTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void aBaselineDatabaseIsUpgradedOnceWithExactCents() throws Exception {
+        File db = dir.resolve("baseline.db").toFile();
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + db)) {
+            seedBaseline(conn);
+            SchemaMigrations.migrate(conn);
+            assertEquals(SchemaMigrations.latestVersion(), SchemaMigrations.currentVersion(conn));
+            String before = snapshot(conn);
+            assertConverted(conn);
+
+            SchemaMigrations.migrate(conn);
+            assertEquals(before, snapshot(conn), "a second run must change nothing");
+            assertEquals(SchemaMigrations.MIGRATIONS.size(), count(conn, "SELECT COUNT(*) FROM schema_version"));
+        }
+        File[] backups = dir.toFile().listFiles((d, name) -> name.startsWith("baseline.db.v0-") && name.endsWith(".bak"));
+        assertEquals(1, backups.length, "one backup, taken before the first upgrade only");
+    }
+
+    private static void seedBaseline(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE users (email TEXT PRIMARY KEY, name TEXT NOT NULL, password TEXT NOT NULL, wallet_balance REAL NOT NULL)");
+            stmt.execute("CREATE TABLE seating_areas (unique_id TEXT PRIMARY KEY, gp_name TEXT NOT NULL, area_name TEXT NOT NULL, price_inr REAL NOT NULL, capacity INTEGER NOT NULL, sold_tickets INTEGER NOT NULL)");
+            stmt.execute("CREATE TABLE tickets (ticket_id TEXT PRIMARY KEY, user_email TEXT NOT NULL, gp_name TEXT NOT NULL, seating_area TEXT NOT NULL, race_date TEXT NOT NULL, ticket_count INTEGER NOT NULL, total_price_usd REAL NOT NULL, booking_date INTEGER NOT NULL, FOREIGN KEY (user_email) REFERENCES users (email))");
+            // 19.99 * 100 is 1998.9999999999998 in binary floating point: truncating would lose a cent.
+            stmt.execute("INSERT INTO users VALUES ('jash@gmail.com', 'jash', '12345678', 975400.0), ('pennies@f1.test', 'Pennies', 'pw', 19.99)");
+            // Likewise 290000.1 * 100 is 29000009.999999996.
+            stmt.execute("INSERT INTO seating_areas VALUES ('Dutch Grand Prix|Pit Grandstand', 'Dutch Grand Prix', 'Pit Grandstand', 290000.1, 3000, 4)");
+            stmt.execute("INSERT INTO tickets VALUES ('F1TKT-1', 'jash@gmail.com', 'Dutch Grand Prix', 'Pit Grandstand', 'Aug 29-31', 4, 21600.29, 1758259585614)");
+        }
+    }
+
+    private static void assertConverted(Connection conn) throws SQLException {
+        assertEquals(97_540_000L, count(conn, "SELECT wallet_cents FROM users WHERE email = 'jash@gmail.com'"));
+        assertEquals(1_999L, count(conn, "SELECT wallet_cents FROM users WHERE email = 'pennies@f1.test'"));
+        assertEquals(2_160_029L, count(conn, "SELECT total_cents FROM tickets WHERE ticket_id = 'F1TKT-1'"));
+        assertEquals(1L, count(conn, "SELECT fx_version FROM tickets WHERE ticket_id = 'F1TKT-1'"));
+        assertEquals(29_000_010L, count(conn, "SELECT price_paise FROM seating_areas WHERE unique_id = 'Dutch Grand Prix|Pit Grandstand'"));
+        assertEquals(4L, count(conn, "SELECT sold_tickets FROM seating_areas WHERE unique_id = 'Dutch Grand Prix|Pit Grandstand'"));
+        assertEquals(1L, count(conn, "SELECT COUNT(*) FROM fx_rates WHERE version = 1 AND rate_ppm = 12000"));
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("SELECT password_hash FROM users WHERE email = 'jash@gmail.com'")) {
+            assertTrue(rs.next());
+            String stored = rs.getString(1);
+            assertTrue(stored.startsWith(PasswordHasher.PREFIX), "plaintext left on disk: " + stored);
+            assertTrue(DataManager.getCredentials().getHasher().verify("12345678", stored));
+        }
+        assertEquals(2L, count(conn, "SELECT COUNT(*) FROM sqlite_master WHERE type = 'index' AND name IN ('idx_tickets_user_booking', 'idx_tickets_area')"));
+        assertEquals(1L, count(conn, "SELECT COUNT(*) FROM sqlite_master WHERE type = 'index' AND name = 'idx_seating_areas_gp' AND sql LIKE '%price_paise%'"));
+    }
+
+    // Every row of every table, so a re-run that rewrites anything (a re-hashed password gets a new salt) shows up.
+    private static String snapshot(Connection conn) throws SQLException {
+        StringBuilder sb = new StringBuilder();
+        for (String table : new String[] {"users", "seating_areas", "tickets", "fx_rates", "ticket_id_nodes"}) {
+            try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("SELECT * FROM " + table + " ORDER BY 1")) {
+                int columns = rs.getMetaData().getColumnCount();
+                while (rs.next()) {
+                    sb.append(table).append(':');
+                    for (int i = 1; i <= columns; i++) sb.append(rs.getString(i)).append('|');
+                    sb.append('\n');
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    private static long count(Connection conn, String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+            assertTrue(rs.next(), sql);
+            return rs.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package f1;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+// Runs against the shared scratch database; see TestDatabase.
+class SeatHoldsTest {
+    private static SeatingArea area;
+
+    @BeforeAll
+    static void database() {
+        TestDatabase.init();
+        area = TestDatabase.area("British Grand Prix", "General Admission");
+    }
+
+    @Test
+    void aUserCannotHoldMoreThanTheCap() {
+        SeatHolds holds = new SeatHolds(60_000, 10, 2);
+        User user = new User("Holder", "holder-" + UUID.randomUUID() + "@f1.test", 0);
+        SeatHolds.Placement first = holds.place(user, area, 1, 60_000);
+        assertEquals(SeatHolds.Status.OK, first.status);
+        assertEquals(SeatHolds.Status.OK, holds.place(user, area, 1, 60_000).status);
+
+        int soldBefore = DataManager.getInventory().sold(area.getUniqueId());
+        SeatHolds.Placement third = holds.place(user, area, 1, 60_000);
+        assertEquals(SeatHolds.Status.LIMIT_REACHED, third.status);
+        assertNull(third.hold);
+        assertEquals(soldBefore, DataManager.getInventory().sold(area.getUniqueId()), "a refused hold must not claim seats");
+
+        User other = new User("Other", "other-" + UUID.randomUUID() + "@f1.test", 0);
+        assertEquals(SeatHolds.Status.OK, holds.place(other, area, 1, 60_000).status);
+
+        assertTrue(holds.release(first.hold));
+        assertEquals(SeatHolds.Status.OK, holds.place(user, area, 1, 60_000).status);
+    }
+
+    @Test
+    void aSellOutDoesNotUseUpTheUsersHolds() {
+        SeatHolds holds = new SeatHolds(60_000, 10, 1);
+        User user = new User("Holder", "holder-" + UUID.randomUUID() + "@f1.test", 0);
+        assertEquals(SeatHolds.Status.SOLD_OUT, holds.place(user, area, area.getCapacity() + 1, 60_000).status);
+        assertEquals(SeatHolds.Status.OK, holds.place(user, area, 1, 60_000).status);
+    }
+}
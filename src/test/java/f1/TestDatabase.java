@@ -0,0 +1,38 @@
+package f1;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.sql.SQLException;
+
+// DataManager is initialised once per JVM, so every test class shares one scratch database,
+// the one surefire points f1.db.url at. It is wiped before the first use only: deleting it
+// under an open connection pool would leave the pool on the old file.
+final class TestDatabase {
+    private static boolean ready;
+
+    private TestDatabase() { }
+
+    static synchronized void init() {
+        if (ready) return;
+        String url = System.getProperty("f1.db.url");
+        assertTrue(url != null && url.contains("target"), "tests must run against a scratch database, got " + url);
+        File db = new File(url.substring("jdbc:sqlite:".length()));
+        for (String suffix : new String[] {"", "-wal", "-shm", "-journal"}) new File(db.getPath() + suffix).delete();
+        DataManager.initializeDatabase();
+        ready = true;
+    }
+
+    static void execute(String sql) throws SQLException {
+        try (PooledConnection pc = DataManager.getPool().borrow()) {
+            pc.prepare(sql).executeUpdate();
+        }
+    }
+
+    static SeatingArea area(String gpName, String areaName) {
+        for (SeatingArea a : DataManager.getSeatingAreasForGP(gpName)) {
+            if (a.getName().equals(areaName)) return a;
+        }
+        throw new IllegalStateException("Missing area " + gpName + "|" + areaName);
+    }
+}
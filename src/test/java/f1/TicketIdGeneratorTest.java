@@ -0,0 +1,122 @@
+package f1;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TicketIdGeneratorTest {
+    private static final long T0 = TicketIdGenerator.EPOCH_MILLIS + 1_000_000L;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void concurrentCallersNeverShareAnId() throws Exception {
+        TicketIdGenerator ids = new TicketIdGenerator(7);
+        int threads = 8, perThread = 50_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<long[]>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                long[] out = new long[perThread];
+                for (int i = 0; i < perThread; i++) out[i] = ids.nextLong();
+                return out;
+            }));
+        }
+        start.countDown();
+        long[] all = new long[threads * perThread];
+        int n = 0;
+        for (Future<long[]> f : results) {
+            long[] mine = f.get(30, TimeUnit.SECONDS);
+            for (int i = 1; i < mine.length; i++) assertTrue(mine[i] > mine[i - 1], "IDs must increase per caller");
+            for (long id : mine) all[n++] = id;
+        }
+        pool.shutdown();
+        Arrays.sort(all);
+        for (int i = 1; i < all.length; i++) assertTrue(all[i] != all[i - 1], "duplicate ID " + all[i]);
+        assertEquals(7, node(all[0]));
+    }
+
+    @Test
+    void aClockThatStepsBackKeepsIssuingIncreasingIds() {
+        AtomicLong clock = new AtomicLong(T0);
+        TicketIdGenerator ids = new TicketIdGenerator(1, clock::get);
+        long before = ids.nextLong();
+        clock.set(T0 - 5_000);
+        long after = ids.nextLong();
+        assertTrue(after > before);
+        assertEquals(millis(before), millis(after), "stays on the last timestamp until the clock catches up");
+        clock.set(T0 + 1);
+        assertEquals(1_000_001L, millis(ids.nextLong()));
+    }
+
+    @Test
+    void anExhaustedSequenceBorrowsTheNextMillisecond() {
+        TicketIdGenerator ids = new TicketIdGenerator(1, () -> T0);
+        long last = 0;
+        for (int i = 0; i < 4096; i++) {
+            long id = ids.nextLong();
+            assertTrue(id > last);
+            assertEquals(1_000_000L, millis(id));
+            last = id;
+        }
+        long rolled = ids.nextLong();
+        assertEquals(1_000_001L, millis(rolled));
+        assertEquals(0, sequence(rolled));
+    }
+
+    @Test
+    void aRestartResumesPastTheCheckpointEvenIfTheClockWentBack() throws Exception {
+        TestDatabase.init(); // the checkpoint thread claim() starts writes through DataManager's pool
+        long checkpoint = 2_000_000L; // the clock below reads 1_000_000: it went back across the restart
+        try (Connection conn = nodesDatabase()) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("INSERT INTO ticket_id_nodes VALUES (3, 'crashed-process', " + checkpoint + ", 0)");
+            }
+            TicketIdGenerator ids = new TicketIdGenerator(3, () -> T0);
+            ids.claim(conn);
+            assertTrue(millis(ids.nextLong()) >= checkpoint + TicketIdGenerator.LEASE_MS);
+        }
+    }
+
+    @Test
+    void aNodeIdHeldByALiveProcessCannotBeClaimed() throws Exception {
+        TestDatabase.init();
+        try (Connection conn = nodesDatabase()) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("INSERT INTO ticket_id_nodes VALUES (4, 'live-process', 0, " + System.currentTimeMillis() + ")");
+            }
+            assertThrows(IllegalStateException.class, () -> new TicketIdGenerator(4).claim(conn));
+        }
+    }
+
+    private Connection nodesDatabase() throws Exception {
+        Connection conn = DriverManager.getConnection("jdbc:sqlite:" + dir.resolve("nodes.db"));
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE ticket_id_nodes (node_id INTEGER PRIMARY KEY, owner TEXT, last_millis INTEGER NOT NULL, heartbeat INTEGER NOT NULL)");
+        }
+        return conn;
+    }
+
+    private static long millis(long id) { return id >>> 22; }
+    private static long node(long id) { return (id >>> 12) & 1023; }
+    private static long sequence(long id) { return id & 4095; }
+}
@@ -0,0 +1,85 @@
+package f1;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+// Keyset pagination over (booking_date, ticket_id); runs against the shared scratch database.
+class TicketsPageTest {
+    @BeforeAll
+    static void freshDatabase() {
+        TestDatabase.init();
+    }
+
+    @Test
+    void pagesWalkEveryTicketOnceWhenBookingDatesTie() throws Exception {
+        String email = newUser();
+        // Inserted out of order; four tickets share one booking_date and two share another.
+        insert(email, "T-e", 2000);
+        insert(email, "T-a", 1000);
+        insert(email, "T-g", 3000);
+        insert(email, "T-c", 2000);
+        insert(email, "T-b", 2000);
+        insert(email, "T-f", 3000);
+        insert(email, "T-d", 2000);
+        List<String> expected = Arrays.asList("T-a", "T-b", "T-c", "T-d", "T-e", "T-f", "T-g");
+
+        for (int pageSize = 1; pageSize <= 8; pageSize++) {
+            assertEquals(expected, walk(email, pageSize), "page size " + pageSize);
+        }
+        assertEquals(expected.size(), DataManager.countTicketsForUser(email));
+    }
+
+    @Test
+    void aPageEndingOnTheLastTicketIsFollowedByAnEmptyPage() throws Exception {
+        String email = newUser();
+        for (int i = 0; i < 6; i++) insert(email, "T-" + i, 5000);
+        List<Ticket> first = DataManager.getTicketsPage(email, null, 3);
+        List<Ticket> second = DataManager.getTicketsPage(email, first.get(2), 3);
+        assertEquals(Arrays.asList("T-3", "T-4", "T-5"), ids(second));
+        assertTrue(DataManager.getTicketsPage(email, second.get(2), 3).isEmpty());
+    }
+
+    @Test
+    void anotherUsersTicketsNeverLeakIntoAPage() throws Exception {
+        String mine = newUser(), theirs = newUser();
+        insert(mine, "T-mine", 1000);
+        insert(theirs, "T-theirs", 1000);
+        assertEquals(Arrays.asList("T-mine"), walk(mine, 1));
+    }
+
+    private static List<String> walk(String email, int pageSize) {
+        List<String> seen = new ArrayList<>();
+        Ticket after = null;
+        while (true) {
+            List<Ticket> page = DataManager.getTicketsPage(email, after, pageSize);
+            assertTrue(page.size() <= pageSize);
+            seen.addAll(ids(page));
+            if (page.size() < pageSize) return seen;
+            after = page.get(page.size() - 1);
+        }
+    }
+
+    private static List<String> ids(List<Ticket> tickets) {
+        List<String> ids = new ArrayList<>();
+        for (Ticket t : tickets) ids.add(t.getTicketId());
+        return ids;
+    }
+
+    private static String newUser() {
+        String email = "pages-" + UUID.randomUUID() + "@f1.test";
+        assertTrue(DataManager.registerUser("Pages Test", email, "pw"));
+        return email;
+    }
+
+    private static void insert(String email, String ticketId, long bookingDate) throws Exception {
+        TestDatabase.execute("INSERT INTO tickets(ticket_id, user_email, gp_name, seating_area, race_date, ticket_count, total_cents, fx_version, booking_date) "
+                + "VALUES('" + ticketId + "', '" + email + "', 'Qatar Grand Prix', 'T16 Grandstand', 'Nov 28-30', 1, 100, 1, " + bookingDate + ")");
+    }
+}
@@ -0,0 +1,42 @@
+package f1;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+// Runs against the shared scratch database; see TestDatabase. Uses a Grand Prix no other test
+// books, since the waiting room is shared by the whole JVM.
+class WaitingRoomTest {
+    private static SeatingArea area;
+
+    @BeforeAll
+    static void database() {
+        TestDatabase.init();
+        area = TestDatabase.area("Azerbaijan Grand Prix", "Champions Club");
+    }
+
+    @Test
+    void dataManagerTurnsAwayBookingsAndHoldsFromUsersStillInLine() {
+        // Use up the burst and leave a line far longer than the test takes to run.
+        for (int i = 0; i < 2000; i++) {
+            DataManager.admission(area.getGpName(), new User("Crowd", "crowd-" + i + "-" + UUID.randomUUID() + "@f1.test", 0));
+        }
+        String email = "queued-" + UUID.randomUUID() + "@f1.test";
+        assertTrue(DataManager.registerUser("Queued", email, "pw"));
+        User user = new User("Queued", email, 100_000_000L);
+        int soldBefore = DataManager.getInventory().sold(area.getUniqueId());
+
+        assertEquals(BookingResult.QUEUED, DataManager.bookTicket(user, area, 1, area.getGrandPrix().getDate()));
+        assertEquals(SeatHolds.Status.QUEUED, DataManager.placeHold(user, area, 1).status);
+
+        WaitingRoom.Pass pass = DataManager.admission(area.getGpName(), user);
+        assertEquals(WaitingRoom.Status.WAITING, pass.status);
+        assertTrue(pass.position > 0);
+        assertEquals(soldBefore, DataManager.getInventory().sold(area.getUniqueId()), "a queued user must not claim seats");
+        assertEquals(100_000_000L, user.getWalletCents());
+        assertEquals(0, DataManager.countTicketsForUser(email));
+    }
+}